@@ -1,26 +1,33 @@
 package plankton.bash;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import plankton.executor.StreamPump;
+import plankton.jfr.BashScriptEvent;
+import plankton.executor.StreamPump.PumpedStream;
+
 public class BashScript {
 
+    private static final int MAX_INLINE_SCRIPT_LENGTH = 32 * 1024;
+
+    private static ShellPool shellPool = null;
+
     private List<String> variables = new ArrayList<>();
     private List<String> commands = new ArrayList<>();
 
     private Process process;
+    private File scriptFile;
+    private String execution;
     private Integer exitCode;
 
     private Consumer<String> forEachOutput;
@@ -41,6 +48,12 @@ public class BashScript {
         number = count;
     }
 
+    public static synchronized void setShellPool(ShellPool pool) {
+        if (shellPool != null)
+            shellPool.shutdown();
+        shellPool = pool;
+    }
+
     @Override
     public String toString() {
         return BashScript.class.getSimpleName() + "[" + number + "]";
@@ -85,23 +98,39 @@ public class BashScript {
     public void run() throws BashScriptFailedException {
         variables.forEach(variable -> logger.debug("{} ... Variable: {}", this, variable));
         commands.forEach(command -> logger.debug("{} ... Command: {}", this, command));
-        commands.add(0, "#!/bin/bash");
-        commands.add(1, "set -e");
-        ProcessBuilder processBuilder = createProcessBuilder();
-        process = startProcessBuilder(processBuilder);
-        Thread outputStreamThread = followOutputStream();
-        Thread errorStreamThread = followErrorStream();
-        outputStreamThread.start();
-        errorStreamThread.start();
-        exitCode = waitForProcess();
-        joinOutputStreamThread(outputStreamThread);
-        joinErrorStreamThread(errorStreamThread);
+        Optional<List<String>> words = commands.size() == 1 ? ShellWords.split(commands.get(0)) : Optional.empty();
+        BashScriptEvent event = new BashScriptEvent();
+        event.begin();
+        Optional<Integer> pooledExitCode = words.isPresent() ? Optional.empty() : runInShellPool();
+        if (pooledExitCode.isPresent()) {
+            exitCode = pooledExitCode.get();
+            event.commit(toString(), "pool", -1, exitCode);
+        } else {
+            try {
+                process = startProcess(words);
+                followProcess();
+            } finally {
+                deleteScriptFile();
+            }
+            event.commit(toString(), execution, process.pid(), exitCode);
+        }
         logger.debug("{} ... Exit code: {}", this, exitCode);
         if (exitCode != 0) {
             throw new BashScriptFailedException(exitCode);
         }
     }
 
+    private void followProcess() {
+        StreamPump streamPump = StreamPump.shared();
+        PumpedStream outputStream = streamPump.pump(this + " output", process, process.getInputStream(),
+                this::acceptOutput);
+        PumpedStream errorStream = streamPump.pump(this + " error", process, process.getErrorStream(),
+                this::acceptError);
+        exitCode = waitForProcess();
+        joinOutputStream(outputStream);
+        joinErrorStream(errorStream);
+    }
+
     public int exitCode() {
         return exitCode;
     }
@@ -119,98 +148,116 @@ public class BashScript {
         }
     }
 
-    private void joinOutputStreamThread(Thread outputStreamThread) {
+    private void joinOutputStream(PumpedStream outputStream) {
         try {
-            outputStreamThread.join();
+            outputStream.join();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new BashScriptException("Unable join output stream thread", e);
         }
     }
 
-    private void joinErrorStreamThread(Thread errorStreamThread) {
+    private void joinErrorStream(PumpedStream errorStream) {
         try {
-            errorStreamThread.join();
+            errorStream.join();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new BashScriptException("Unable join error stream thread", e);
         }
     }
 
-    private ProcessBuilder createProcessBuilder() {
-        File tempScript = createTempFile();
-        try (Writer streamWriter = new OutputStreamWriter(new FileOutputStream(tempScript));) {
-            final PrintWriter printWriter = new PrintWriter(streamWriter);
-            commands.forEach(printWriter::println);
-            printWriter.close();
-            final ProcessBuilder processBuilder = new ProcessBuilder("bash", tempScript.toString());
-            variables.forEach(keyValue -> {
-                int separatorIndex = keyValue.indexOf("=");
-                String key = keyValue.substring(0, separatorIndex).trim();
-                String value = keyValue.substring(separatorIndex + 1).trim();
-                processBuilder.environment().put(key, value);
-            });
-            return processBuilder;
-        } catch (final IOException e) {
-            throw new BashScriptException("Unable to create process builder", e);
-        }
+    private Optional<Integer> runInShellPool() {
+        ShellPool pool = shellPool;
+        if (pool == null)
+            return Optional.empty();
+        StringBuilder script = new StringBuilder();
+        variables.forEach(keyValue -> {
+            int separatorIndex = keyValue.indexOf("=");
+            String key = keyValue.substring(0, separatorIndex).trim();
+            String value = keyValue.substring(separatorIndex + 1).trim();
+            script.append("export ").append(key).append("='").append(value.replace("'", "'\\''")).append("'\n");
+        });
+        script.append("set -e\n").append(String.join("\n", commands));
+        if (script.length() > MAX_INLINE_SCRIPT_LENGTH)
+            return Optional.empty();
+        return pool.run(script.toString(), this::acceptOutput, this::acceptError);
     }
 
-    private Process startProcessBuilder(ProcessBuilder processBuilder) {
+    private Process startProcess(Optional<List<String>> words) {
+        if (words.isPresent()) {
+            try {
+                execution = "direct";
+                return createProcessBuilder(words.get()).start();
+            } catch (IOException e) {
+                logger.debug("{} ... Unable to execute command directly, running it with bash", this, e);
+            }
+        }
         try {
-            return processBuilder.start();
+            execution = "bash";
+            return createProcessBuilder(bashCommandLine()).start();
         } catch (IOException e) {
             throw new BashScriptException("Unable to start process builder", e);
         }
     }
 
-    private File createTempFile() {
+    private List<String> bashCommandLine() {
+        String script = String.join("\n", commands);
+        if (script.length() <= MAX_INLINE_SCRIPT_LENGTH)
+            return List.of("bash", "-e", "-c", script);
+        scriptFile = createScriptFile(script);
+        return List.of("bash", "-e", scriptFile.toString());
+    }
+
+    private ProcessBuilder createProcessBuilder(List<String> commandLine) {
+        ProcessBuilder processBuilder = new ProcessBuilder(commandLine);
+        variables.forEach(keyValue -> {
+            int separatorIndex = keyValue.indexOf("=");
+            String key = keyValue.substring(0, separatorIndex).trim();
+            String value = keyValue.substring(separatorIndex + 1).trim();
+            processBuilder.environment().put(key, value);
+        });
+        return processBuilder;
+    }
+
+    private File createScriptFile(String script) {
+        File file = null;
         try {
-            return File.createTempFile(BashScript.class.getSimpleName(), String.valueOf(number));
+            file = File.createTempFile(BashScript.class.getSimpleName(), String.valueOf(number));
+            file.deleteOnExit();
+            Files.writeString(file.toPath(), script, StandardCharsets.UTF_8);
+            return file;
         } catch (final IOException e) {
+            if (file != null)
+                file.delete();
             throw new BashScriptException("Unable to create temp file", e);
         }
     }
 
+    private void deleteScriptFile() {
+        if (scriptFile != null && !scriptFile.delete())
+            logger.warn("{} ... Unable to delete temp file {}", this, scriptFile);
+        scriptFile = null;
+    }
+
     private static final String LOG_TEMPLATE = "{} ... {}";
 
-    private Thread followOutputStream() {
-        return new Thread(() -> {
-            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            try {
-                String line;
-                while ((line = bufferedReader.readLine()) != null) {
-                    if (!line.isBlank()) {
-                        logger.debug(LOG_TEMPLATE, this, line);
-                        if (forEachOutput != null)
-                            forEachOutput.accept(line);
-                    }
-                }
-            } catch (IOException e) {
-                throw new BashScriptException("Unable to follow output stream", e);
-            }
-        });
+    private void acceptOutput(String line) {
+        if (!line.isBlank()) {
+            logger.debug(LOG_TEMPLATE, this, line);
+            if (forEachOutput != null)
+                forEachOutput.accept(line);
+        }
     }
 
-    private Thread followErrorStream() {
-        return new Thread(() -> {
-            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            try {
-                String line;
-                while ((line = bufferedReader.readLine()) != null) {
-                    hasError = true;
-                    if (!line.isBlank()) {
-                        if (forEachError != null) {
-                            logger.debug("{} ERROR ... {}", this, line);
-                            forEachError.accept(line);
-                        } else {
-                            logger.error(LOG_TEMPLATE, this, line);
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                throw new BashScriptException("Unable to follow error stream", e);
+    private void acceptError(String line) {
+        hasError = true;
+        if (!line.isBlank()) {
+            if (forEachError != null) {
+                logger.debug("{} ERROR ... {}", this, line);
+                forEachError.accept(line);
+            } else {
+                logger.error(LOG_TEMPLATE, this, line);
             }
-        });
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,200 @@
+package plankton.bash;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import plankton.executor.StreamPump;
+import plankton.executor.StreamPump.PumpedStream;
+
+public class ShellPool {
+
+    // Reads scripts framed by a token line, runs each in a subshell and reports its exit code after the token
+    private static final String DRIVER = String.join("\n",
+            "while IFS= read -r token; do",
+            "  script=",
+            "  while IFS= read -r line && [ \"$line\" != \"$token\" ]; do script+=\"$line\"$'\\n'; done",
+            "  ( eval \"$script\" ) </dev/null",
+            "  status=$?",
+            "  printf '%s\\n' \"$token\" >&2",
+            "  printf '%s %d\\n' \"$token\" \"$status\"",
+            "done");
+
+    private final int size;
+    private final Deque<Shell> idleShells = new ArrayDeque<>();
+    private final List<Shell> shells = new ArrayList<>();
+    private int startedShells = 0;
+
+    private static final Logger logger = LoggerFactory.getLogger(ShellPool.class);
+
+    public ShellPool(int size) {
+        this.size = size;
+    }
+
+    Optional<Integer> run(String script, Consumer<String> forEachOutput, Consumer<String> forEachError) {
+        Shell shell = acquire();
+        if (shell == null)
+            return Optional.empty();
+        try {
+            return Optional.of(shell.run(script, forEachOutput, forEachError));
+        } finally {
+            release(shell);
+        }
+    }
+
+    private Shell acquire() {
+        Shell shell;
+        synchronized (this) {
+            while ((shell = idleShells.poll()) != null) {
+                if (shell.process.isAlive())
+                    return shell;
+                shells.remove(shell);
+            }
+            if (shells.size() >= size)
+                return null;
+            shell = new Shell(++startedShells);
+            shells.add(shell);
+        }
+        try {
+            shell.start();
+            return shell;
+        } catch (IOException e) {
+            logger.warn("Unable to start pooled shell", e);
+            synchronized (this) {
+                shells.remove(shell);
+            }
+            return null;
+        }
+    }
+
+    private synchronized void release(Shell shell) {
+        if (shell.process.isAlive()) {
+            idleShells.push(shell);
+        } else {
+            logger.debug("{} exited, it will be replaced", shell);
+            shells.remove(shell);
+        }
+    }
+
+    public synchronized void shutdown() {
+        shells.forEach(shell -> {
+            if (shell.process != null)
+                shell.process.destroy();
+        });
+        shells.clear();
+        idleShells.clear();
+    }
+
+    private static class Shell {
+
+        private final int number;
+        private Process process;
+        private Writer writer;
+        private PumpedStream outputStream;
+        private PumpedStream errorStream;
+
+        private volatile String token;
+        private volatile Integer exitCode;
+        private volatile CountDownLatch markers;
+        private volatile Consumer<String> forEachOutput;
+        private volatile Consumer<String> forEachError;
+
+        Shell(int number) {
+            this.number = number;
+        }
+
+        void start() throws IOException {
+            process = new ProcessBuilder("bash", "--noprofile", "--norc", "-c", DRIVER).start();
+            writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+            outputStream = StreamPump.shared().pump(this + " output", process, process.getInputStream(),
+                    this::acceptOutput);
+            errorStream = StreamPump.shared().pump(this + " error", process, process.getErrorStream(),
+                    this::acceptError);
+            process.onExit().thenRun(() -> {
+                CountDownLatch latch = markers;
+                if (latch != null)
+                    while (latch.getCount() > 0)
+                        latch.countDown();
+            });
+            logger.debug("Started {}", this);
+        }
+
+        int run(String script, Consumer<String> forEachOutput, Consumer<String> forEachError) {
+            this.forEachOutput = forEachOutput;
+            this.forEachError = forEachError;
+            exitCode = null;
+            token = "plankton-" + UUID.randomUUID();
+            CountDownLatch latch = new CountDownLatch(2);
+            markers = latch;
+            try {
+                writer.write(token + "\n" + script + "\n" + token + "\n");
+                writer.flush();
+                outputStream.wakeUp();
+                errorStream.wakeUp();
+            } catch (IOException e) {
+                process.destroy();
+                throw new BashScriptException("Unable to write to pooled shell", e);
+            }
+            if (!process.isAlive())
+                while (latch.getCount() > 0)
+                    latch.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+                throw new BashScriptException("Unable to wait for pooled shell", e);
+            }
+            if (exitCode == null)
+                throw new BashScriptException("Pooled shell exited while running script", null);
+            return exitCode;
+        }
+
+        private void acceptOutput(String line) {
+            String currentToken = token;
+            int index = currentToken == null ? -1 : line.indexOf(currentToken);
+            if (index < 0) {
+                deliver(forEachOutput, line);
+                return;
+            }
+            if (index > 0)
+                deliver(forEachOutput, line.substring(0, index));
+            exitCode = Integer.parseInt(line.substring(index + currentToken.length()).trim());
+            markers.countDown();
+        }
+
+        private void acceptError(String line) {
+            String currentToken = token;
+            int index = currentToken == null ? -1 : line.indexOf(currentToken);
+            if (index < 0) {
+                deliver(forEachError, line);
+                return;
+            }
+            if (index > 0)
+                deliver(forEachError, line.substring(0, index));
+            markers.countDown();
+        }
+
+        private static void deliver(Consumer<String> consumer, String line) {
+            if (consumer != null)
+                consumer.accept(line);
+        }
+
+        @Override
+        public String toString() {
+            return ShellPool.class.getSimpleName() + "[" + number + "]";
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package plankton.bash;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+public class ShellWords {
+
+    private static final String SHELL_CHARACTERS = "|&;<>()`*?[]{}~#!\n\r";
+    private static final String DOUBLE_QUOTED_SHELL_CHARACTERS = "`!";
+    private static final String DOUBLE_QUOTED_ESCAPED_CHARACTERS = "$`\"\\";
+    private static final String SPLIT_OR_GLOBBED_CHARACTERS = " \t\n*?[";
+    private static final Pattern LEADING_ASSIGNMENT = Pattern.compile("\\s*[A-Za-z_][A-Za-z0-9_]*\\+?=.*",
+            Pattern.DOTALL);
+    private static final Set<String> SHELL_ONLY_COMMANDS = Set.of(".", "alias", "case", "cd", "eval", "exec",
+            "exit", "export", "for", "function", "if", "read", "set", "source", "time", "trap", "ulimit", "umask",
+            "unset", "until", "wait", "while");
+
+    private ShellWords() {
+    }
+
+    /**
+     * Splits a command into its words when bash would only split and unquote it, so that it can be executed
+     * without a shell. Returns empty when the command has any other shell construct.
+     */
+    static Optional<List<String>> split(String command) {
+        Optional<List<String>> words = words(command, null);
+        if (words.isEmpty() || words.get().isEmpty() || LEADING_ASSIGNMENT.matcher(command).matches()
+                || SHELL_ONLY_COMMANDS.contains(words.get().get(0)))
+            return Optional.empty();
+        return words;
+    }
+
+    /**
+     * Splits a line into the words bash would pass to a command: quotes and backslashes are removed, and with
+     * variables, $NAME and ${NAME} are expanded from them, unset ones being empty. Returns empty when the line has
+     * any other shell construct, or an unquoted expansion that bash would split or glob.
+     */
+    public static Optional<List<String>> words(String line, Function<String, String> variables) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean inWord = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'')
+                    quote = 0;
+                else
+                    word.append(c);
+            } else if (c == '$' && variables != null) {
+                int end = variableEnd(line, i);
+                if (end < 0)
+                    return Optional.empty();
+                if (end == i + 1) {
+                    word.append(c);
+                    inWord = true;
+                    continue;
+                }
+                String name = line.charAt(i + 1) == '{' ? line.substring(i + 2, end - 1) : line.substring(i + 1, end);
+                String value = variables.apply(name);
+                if (value == null)
+                    value = "";
+                if (quote == 0 && value.chars().anyMatch(v -> SPLIT_OR_GLOBBED_CHARACTERS.indexOf(v) >= 0))
+                    return Optional.empty();
+                word.append(value);
+                inWord |= quote != 0 || !value.isEmpty();
+                i = end - 1;
+            } else if (quote == '"') {
+                if (c == '"')
+                    quote = 0;
+                else if (c == '\\' && i + 1 < line.length()
+                        && DOUBLE_QUOTED_ESCAPED_CHARACTERS.indexOf(line.charAt(i + 1)) >= 0)
+                    word.append(line.charAt(++i));
+                else if (c == '$' || DOUBLE_QUOTED_SHELL_CHARACTERS.indexOf(c) >= 0)
+                    return Optional.empty();
+                else
+                    word.append(c);
+            } else if (c == ' ' || c == '\t') {
+                if (inWord)
+                    words.add(word.toString());
+                word.setLength(0);
+                inWord = false;
+            } else if (c == '\\') {
+                if (i + 1 == line.length() || line.charAt(i + 1) == '\n')
+                    return Optional.empty();
+                word.append(line.charAt(++i));
+                inWord = true;
+            } else if (c == '$' || SHELL_CHARACTERS.indexOf(c) >= 0) {
+                return Optional.empty();
+            } else {
+                if (c == '\'' || c == '"')
+                    quote = c;
+                else
+                    word.append(c);
+                inWord = true;
+            }
+        }
+        if (quote != 0)
+            return Optional.empty();
+        if (inWord)
+            words.add(word.toString());
+        return Optional.of(words);
+    }
+
+    // The end of the variable starting with the $ at the given index, the next index when the $ is literal, or -1
+    // when it starts another expansion
+    private static int variableEnd(String line, int dollar) {
+        int i = dollar + 1;
+        if (i == line.length())
+            return i;
+        char c = line.charAt(i);
+        if (c == '{') {
+            int end = nameEnd(line, i + 1);
+            return end > i + 1 && end < line.length() && line.charAt(end) == '}' ? end + 1 : -1;
+        }
+        if (isNameStart(c))
+            return nameEnd(line, i);
+        return c == ' ' || c == '\t' || c == '"' ? i : -1;
+    }
+
+    private static int nameEnd(String line, int start) {
+        if (start == line.length() || !isNameStart(line.charAt(start)))
+            return start;
+        int i = start + 1;
+        while (i < line.length() && (isNameStart(line.charAt(i)) || (line.charAt(i) >= '0' && line.charAt(i) <= '9')))
+            i++;
+        return i;
+    }
+
+    private static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+}
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import plankton.compose.serviceprops.Build;
 import plankton.compose.serviceprops.Command;
+import plankton.compose.serviceprops.Cpus;
 import plankton.compose.serviceprops.DependsOn;
 import plankton.compose.serviceprops.Entrypoint;
 import plankton.compose.serviceprops.EnvFile;
@@ -25,7 +26,11 @@ import plankton.compose.serviceprops.GroupAdd;
 import plankton.compose.serviceprops.Healthcheck;
 import plankton.compose.serviceprops.Image;
 import plankton.compose.serviceprops.Labels;
+import plankton.compose.serviceprops.LogOverflow;
+import plankton.compose.serviceprops.MemLimit;
 import plankton.compose.serviceprops.Profiles;
+import plankton.compose.serviceprops.Quiet;
+import plankton.compose.serviceprops.Timeout;
 import plankton.compose.serviceprops.User;
 import plankton.compose.serviceprops.Volumes;
 import plankton.compose.serviceprops.WorkingDir;
@@ -51,6 +56,8 @@ public class ComposeInitializer {
                 logger.debug("{} build = {}", service, service.build);
             if (service.command != null)
                 logger.debug("{} command = {}", service, service.command);
+            if (service.cpus != null)
+                logger.debug("{} cpus = {}", service, service.cpus);
             if (service.dependsOn != null)
                 logger.debug("{} dependsOn = {}", service, service.dependsOn);
             if (service.entrypoint != null)
@@ -71,8 +78,16 @@ public class ComposeInitializer {
                 logger.debug("{} image = {}", service, service.image);
             if (service.labels != null)
                 logger.debug("{} labels = {}", service, service.labels);
+            if (service.logOverflow != null)
+                logger.debug("{} logOverflow = {}", service, service.logOverflow);
+            if (service.memLimit != null)
+                logger.debug("{} memLimit = {}", service, service.memLimit);
             if (service.profiles != null)
                 logger.debug("{} profiles = {}", service, service.profiles);
+            if (service.quiet != null)
+                logger.debug("{} quiet = {}", service, service.quiet);
+            if (service.timeout != null)
+                logger.debug("{} timeout = {}", service, service.timeout);
             if (service.user != null)
                 logger.debug("{} user = {}", service, service.user);
             if (service.volumes != null)
@@ -133,6 +148,7 @@ public class ComposeInitializer {
     private void initializeServicesProperties(ComposeDocument doc) {
         doc.services().forEach(s -> s.build = initializeProperty(doc, s, Build::new));
         doc.services().forEach(s -> s.command = initializeProperty(doc, s, Command::new));
+        doc.services().forEach(s -> s.cpus = initializeProperty(doc, s, Cpus::new));
         doc.services().forEach(s -> s.dependsOn = initializeProperty(doc, s, DependsOn::new));
         doc.services().forEach(s -> s.entrypoint = initializeProperty(doc, s, Entrypoint::new));
         doc.services().forEach(s -> s.envFile = initializeProperty(doc, s, EnvFile::new));
@@ -143,7 +159,11 @@ public class ComposeInitializer {
         doc.services().forEach(s -> s.healthcheck = initializeProperty(doc, s, Healthcheck::new));
         doc.services().forEach(s -> s.image = initializeProperty(doc, s, Image::new));
         doc.services().forEach(s -> s.labels = initializeProperty(doc, s, Labels::new));
+        doc.services().forEach(s -> s.logOverflow = initializeProperty(doc, s, LogOverflow::new));
+        doc.services().forEach(s -> s.memLimit = initializeProperty(doc, s, MemLimit::new));
         doc.services().forEach(s -> s.profiles = initializeProperty(doc, s, Profiles::new));
+        doc.services().forEach(s -> s.quiet = initializeProperty(doc, s, Quiet::new));
+        doc.services().forEach(s -> s.timeout = initializeProperty(doc, s, Timeout::new));
         doc.services().forEach(s -> s.user = initializeProperty(doc, s, User::new));
         doc.services().forEach(s -> s.volumes = initializeProperty(doc, s, Volumes::new));
         doc.services().forEach(s -> s.workingDir = initializeProperty(doc, s, WorkingDir::new));
@@ -206,6 +226,7 @@ public class ComposeInitializer {
         logger.info("{} extends {}", service, parent);
         service.build = extendProperty(parent.build, service.build);
         service.command = extendProperty(parent.command, service.command);
+        service.cpus = extendProperty(parent.cpus, service.cpus);
         service.dependsOn = extendProperty(parent.dependsOn, service.dependsOn);
         service.entrypoint = extendProperty(parent.entrypoint, service.entrypoint);
         service.envFile = extendProperty(parent.envFile, service.envFile);
@@ -215,7 +236,11 @@ public class ComposeInitializer {
         service.healthcheck = extendProperty(parent.healthcheck, service.healthcheck);
         service.image = extendProperty(parent.image, service.image);
         service.labels = extendProperty(parent.labels, service.labels);
+        service.logOverflow = extendProperty(parent.logOverflow, service.logOverflow);
+        service.memLimit = extendProperty(parent.memLimit, service.memLimit);
         service.profiles = extendProperty(parent.profiles, service.profiles);
+        service.quiet = extendProperty(parent.quiet, service.quiet);
+        service.timeout = extendProperty(parent.timeout, service.timeout);
         service.user = extendProperty(parent.user, service.user);
         service.volumes = extendProperty(parent.volumes, service.volumes);
         service.workingDir = extendProperty(parent.workingDir, service.workingDir);
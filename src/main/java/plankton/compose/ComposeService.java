@@ -1,5 +1,6 @@
 package plankton.compose;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -12,6 +13,7 @@ import java.util.Set;
 import lombok.EqualsAndHashCode;
 import plankton.compose.serviceprops.Build;
 import plankton.compose.serviceprops.Command;
+import plankton.compose.serviceprops.Cpus;
 import plankton.compose.serviceprops.DependsOn;
 import plankton.compose.serviceprops.Entrypoint;
 import plankton.compose.serviceprops.EnvFile;
@@ -22,7 +24,11 @@ import plankton.compose.serviceprops.GroupAdd;
 import plankton.compose.serviceprops.Healthcheck;
 import plankton.compose.serviceprops.Image;
 import plankton.compose.serviceprops.Labels;
+import plankton.compose.serviceprops.LogOverflow;
+import plankton.compose.serviceprops.MemLimit;
 import plankton.compose.serviceprops.Profiles;
+import plankton.compose.serviceprops.Quiet;
+import plankton.compose.serviceprops.Timeout;
 import plankton.compose.serviceprops.User;
 import plankton.compose.serviceprops.Volumes;
 import plankton.compose.serviceprops.WorkingDir;
@@ -39,6 +45,7 @@ public class ComposeService {
 
     Build build;
     Command command;
+    Cpus cpus;
     DependsOn dependsOn;
     Entrypoint entrypoint;
     EnvFile envFile;
@@ -49,7 +56,11 @@ public class ComposeService {
     Healthcheck healthcheck;
     Image image;
     Labels labels;
+    LogOverflow logOverflow;
+    MemLimit memLimit;
     Profiles profiles;
+    Quiet quiet;
+    Timeout timeout;
     User user;
     Volumes volumes;
     WorkingDir workingDir;
@@ -95,6 +106,10 @@ public class ComposeService {
                 : command.lines();
     }
 
+    public Optional<Double> cpus() {
+        return Optional.ofNullable(cpus).map(Cpus::getValue);
+    }
+
     public Map<ComposeService, DependsOnCondition> dependsOn() {
         Map<ComposeService, DependsOnCondition> map = new HashMap<>();
         if (dependsOn != null) {
@@ -158,12 +173,28 @@ public class ComposeService {
                 : labels.list();
     }
 
+    public Optional<String> logOverflow() {
+        return Optional.ofNullable(logOverflow).map(LogOverflow::getPolicy);
+    }
+
+    public Optional<Long> memLimit() {
+        return Optional.ofNullable(memLimit).map(MemLimit::getBytes);
+    }
+
     public List<String> profiles() {
         return profiles == null
                 ? new ArrayList<>()
                 : profiles.list();
     }
 
+    public Optional<Boolean> quiet() {
+        return Optional.ofNullable(quiet).map(Quiet::isValue);
+    }
+
+    public Optional<Duration> timeout() {
+        return Optional.ofNullable(timeout).map(Timeout::getDuration);
+    }
+
     public Optional<User> user() {
         return Optional.ofNullable(user);
     }
@@ -0,0 +1,36 @@
+package plankton.compose.serviceprops;
+
+import lombok.Getter;
+import plankton.compose.ServiceProperty;
+
+public class Cpus extends ServiceProperty<Cpus> {
+
+    @Getter
+    private double value;
+
+    public Cpus() {
+        super("cpus");
+    }
+
+    @Override
+    public void initialize(Object object) {
+        if (object instanceof Number)
+            value = ((Number) object).doubleValue();
+        else
+            value = Double.parseDouble((String) object);
+    }
+
+    @Override
+    public Cpus applyTo(Cpus other) {
+        if (other == null) {
+            other = new Cpus();
+            other.value = this.value;
+        }
+        return other;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
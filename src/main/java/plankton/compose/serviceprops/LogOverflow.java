@@ -0,0 +1,33 @@
+package plankton.compose.serviceprops;
+
+import lombok.Getter;
+import plankton.compose.ServiceProperty;
+
+public class LogOverflow extends ServiceProperty<LogOverflow> {
+
+    @Getter
+    private String policy;
+
+    public LogOverflow() {
+        super("log_overflow");
+    }
+
+    @Override
+    public void initialize(Object object) {
+        policy = (String) object;
+    }
+
+    @Override
+    public LogOverflow applyTo(LogOverflow other) {
+        if (other == null) {
+            other = new LogOverflow();
+            other.policy = this.policy;
+        }
+        return other;
+    }
+
+    @Override
+    public String toString() {
+        return policy;
+    }
+}
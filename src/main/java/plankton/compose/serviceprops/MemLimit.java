@@ -0,0 +1,59 @@
+package plankton.compose.serviceprops;
+
+import lombok.Getter;
+import plankton.compose.ServiceProperty;
+
+public class MemLimit extends ServiceProperty<MemLimit> {
+
+    @Getter
+    private long bytes;
+
+    public MemLimit() {
+        super("mem_limit");
+    }
+
+    @Override
+    public void initialize(Object object) {
+        if (object instanceof Number)
+            bytes = ((Number) object).longValue();
+        else
+            bytes = bytesOf((String) object);
+    }
+
+    @Override
+    public MemLimit applyTo(MemLimit other) {
+        if (other == null) {
+            other = new MemLimit();
+            other.bytes = this.bytes;
+        }
+        return other;
+    }
+
+    public static long bytesOf(String string) {
+        String s = string.trim().toLowerCase();
+        if (s.endsWith("b"))
+            s = s.substring(0, s.length() - 1);
+        long unit = 1;
+        switch (s.isEmpty() ? ' ' : s.charAt(s.length() - 1)) {
+            case 'k':
+                unit = 1L << 10;
+                break;
+            case 'm':
+                unit = 1L << 20;
+                break;
+            case 'g':
+                unit = 1L << 30;
+                break;
+            default:
+                break;
+        }
+        if (unit > 1)
+            s = s.substring(0, s.length() - 1);
+        return (long) (Double.parseDouble(s) * unit);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(bytes);
+    }
+}
@@ -0,0 +1,36 @@
+package plankton.compose.serviceprops;
+
+import lombok.Getter;
+import plankton.compose.ServiceProperty;
+
+public class Quiet extends ServiceProperty<Quiet> {
+
+    @Getter
+    private boolean value;
+
+    public Quiet() {
+        super("quiet");
+    }
+
+    @Override
+    public void initialize(Object object) {
+        if (object instanceof Boolean)
+            value = (Boolean) object;
+        else
+            value = Boolean.parseBoolean((String) object);
+    }
+
+    @Override
+    public Quiet applyTo(Quiet other) {
+        if (other == null) {
+            other = new Quiet();
+            other.value = this.value;
+        }
+        return other;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,75 @@
+package plankton.compose.serviceprops;
+
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.Getter;
+import plankton.compose.ServiceProperty;
+
+public class Timeout extends ServiceProperty<Timeout> {
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(h|ms|us|m|s)");
+
+    @Getter
+    private Duration duration;
+
+    public Timeout() {
+        super("timeout");
+    }
+
+    @Override
+    public void initialize(Object object) {
+        if (object instanceof Number)
+            duration = Duration.ofSeconds(((Number) object).longValue());
+        else
+            duration = durationOf((String) object);
+    }
+
+    @Override
+    public Timeout applyTo(Timeout other) {
+        if (other == null) {
+            other = new Timeout();
+            other.duration = this.duration;
+        }
+        return other;
+    }
+
+    public static Duration durationOf(String string) {
+        String s = string.trim();
+        if (s.matches("\\d+"))
+            return Duration.ofSeconds(Long.parseLong(s));
+        Matcher matcher = DURATION_PART.matcher(s);
+        Duration result = Duration.ZERO;
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            double value = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h":
+                    result = result.plusMillis((long) (value * 3600000));
+                    break;
+                case "m":
+                    result = result.plusMillis((long) (value * 60000));
+                    break;
+                case "s":
+                    result = result.plusMillis((long) (value * 1000));
+                    break;
+                case "ms":
+                    result = result.plusMillis((long) value);
+                    break;
+                default:
+                    result = result.plusNanos((long) (value * 1000));
+                    break;
+            }
+            end = matcher.end();
+        }
+        if (end == 0 || end != s.length())
+            throw new IllegalArgumentException("Invalid duration: " + string);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(duration);
+    }
+}
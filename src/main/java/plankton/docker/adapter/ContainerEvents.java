@@ -0,0 +1,139 @@
+package plankton.docker.adapter;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import plankton.docker.client.DockerClient;
+import plankton.docker.client.DockerClientException;
+import plankton.docker.client.DockerEvent;
+import plankton.docker.inspect.ContainerState;
+import plankton.docker.inspect.DockerInspect;
+import plankton.executor.PlanktonExecutor;
+
+class ContainerEvents {
+
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+    private static final long INSPECT_INTERVAL_SECONDS = 30;
+    private static final long CLOCK_SKEW_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final DockerClient dockerClient;
+    private final String label;
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+
+    private volatile long sinceNano = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - CLOCK_SKEW_NANOS;
+    private volatile boolean stopped = false;
+
+    private static final Logger logger = LoggerFactory.getLogger(ContainerEvents.class);
+
+    private static class Watch {
+        private final CompletableFuture<Integer> exitCode = new CompletableFuture<>();
+        private final Runnable onStarted;
+        private final Runnable onHealthy;
+        private CompletableFuture<Void> callbacks = CompletableFuture.completedFuture(null);
+
+        Watch(Runnable onStarted, Runnable onHealthy) {
+            this.onStarted = onStarted == null ? () -> {
+            } : onStarted;
+            this.onHealthy = onHealthy == null ? () -> {
+            } : onHealthy;
+        }
+    }
+
+    ContainerEvents(DockerClient dockerClient, String label) {
+        this.dockerClient = dockerClient;
+        this.label = label;
+    }
+
+    void start() {
+        PlanktonExecutor.streamExecutor().execute("docker events", this::subscribe);
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    private void subscribe() {
+        while (!stopped) {
+            try {
+                dockerClient.eventSubscriber()
+                        .filter("type=container")
+                        .filter("label=" + label)
+                        .filter("event=start")
+                        .filter("event=die")
+                        .filter("event=health_status")
+                        .forEachError(msg -> logger.debug("Docker events ... {}", msg))
+                        .subscribe(sinceNano, this::onEvent);
+                logger.debug("Docker events stream ended");
+            } catch (DockerClientException e) {
+                logger.debug("Docker events stream failed", e);
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void onEvent(DockerEvent event) {
+        logger.debug("Docker event: {}", event);
+        if (event.getTimeNano() > 0)
+            sinceNano = event.getTimeNano();
+        Watch watch = watches.get(event.getContainerName());
+        if (watch == null)
+            return;
+        if (event.isStart())
+            runCallback(event.getContainerName(), watch, watch.onStarted);
+        else if (event.isHealthy())
+            runCallback(event.getContainerName(), watch, watch.onHealthy);
+        else if (event.isDie())
+            watch.callbacks = watch.callbacks.thenRun(
+                    () -> watch.exitCode.complete(event.getExitCode() == null ? -1 : event.getExitCode()));
+    }
+
+    // Callbacks take the pipeline lock and can stop containers, so they run on the control executor instead of the
+    // events thread, one after the other for a given container
+    private static void runCallback(String containerName, Watch watch, Runnable callback) {
+        watch.callbacks = watch.callbacks.thenRunAsync(() -> {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                logger.error("Event callback failed for container {}", containerName, e);
+            }
+        }, runnable -> PlanktonExecutor.controlExecutor().execute("events " + containerName, runnable));
+    }
+
+    void watch(String containerName, Runnable onStarted, Runnable onHealthy) {
+        watches.put(containerName, new Watch(onStarted, onHealthy));
+    }
+
+    int awaitExitCode(String containerName) {
+        Watch watch = watches.get(containerName);
+        try {
+            while (true) {
+                try {
+                    return watch.exitCode.get(INSPECT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                } catch (TimeoutException e) {
+                    ContainerState state = new DockerInspect(dockerClient).getContainer(containerName).getState();
+                    if (state != null && state.exited())
+                        return state.exitCode();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerAdapterException("Interrupted while waiting for container: " + containerName, e);
+        } catch (ExecutionException e) {
+            throw new DockerAdapterException("Unable to wait for container: " + containerName, e.getCause());
+        } finally {
+            watches.remove(containerName);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package plankton.docker.adapter;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -30,6 +34,10 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
     private final String networkName;
 
     private final DockerClient dockerClient;
+    private final ImageRegistry imageRegistry;
+    private final ContainerEvents containerEvents;
+
+    private static final String NAMESPACE_LABEL = "plankton.namespace";
 
     private static final Logger logger = LoggerFactory.getLogger(DockerAdapter.class);
     private final String prefix = DockerAdapter.class.getSimpleName() + " ... ";
@@ -43,7 +51,9 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
         this.namespace = configuration.namespace();
         this.networkName = namespace + "_network";
 
-        this.dockerClient = new DockerClient(daemon);
+        this.dockerClient = DockerClient.of(daemon);
+        this.imageRegistry = new ImageRegistry(dockerClient);
+        this.containerEvents = new ContainerEvents(dockerClient, NAMESPACE_LABEL + "=" + namespace);
 
         logger.debug("workspacePathFromRunnerPerspective={}", workspacePathFromRunnerPerspective);
         logger.debug("workspacePathFromAdapterPerspective={}", workspacePathFromAdapterPerspective);
@@ -53,6 +63,8 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
         logger.debug("networkName={}", networkName);
 
         createNetwork();
+        imageRegistry.preload();
+        containerEvents.start();
 
         Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
     }
@@ -98,16 +110,52 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
     public void pullImage(ContainerConfiguration config) {
         ComposeService service = config.getService();
         String imageTag = service.image().orElseThrow();
-        if (!imageExists(imageTag)) {
-            dockerClient.imagePuller()
-                    .forEachOutput(config.getForEachOutput())
-                    .forEachError(config.getForEachError())
-                    .pullImage(imageTag);
+        imageRegistry.pull(imageTag, () -> dockerClient.imagePuller()
+                .forEachOutput(config.getForEachOutput())
+                .forEachError(config.getForEachError())
+                .pullImage(imageTag));
+    }
+
+    @Override
+    public String imageDigest(ContainerConfiguration config) {
+        ComposeService service = config.getService();
+        return imageRegistry.imageId(service.image().orElseThrow());
+    }
+
+    @Override
+    public Optional<Map<String, Path>> readOnlyInputs(ContainerConfiguration config) {
+        ComposeService service = config.getService();
+        Map<String, Path> inputs = new LinkedHashMap<>();
+        for (String volume : service.volumes()) {
+            if (!volume.endsWith(":ro"))
+                return Optional.empty();
+            int i = volume.indexOf(":");
+            String source = volume.substring(0, i);
+            Optional<Path> path = pathFromRunnerPerspective(source);
+            if (path.isEmpty())
+                return Optional.empty();
+            inputs.put("volume=" + relativeToWorkspace(source) + volume.substring(i), path.get());
         }
+        for (String envFile : service.envFile()) {
+            Optional<Path> path = pathFromRunnerPerspective(envFile);
+            if (path.isEmpty())
+                return Optional.empty();
+            inputs.put("env_file=" + relativeToWorkspace(envFile), path.get());
+        }
+        return Optional.of(inputs);
     }
 
-    private boolean imageExists(String imageTag) {
-        return dockerClient.imageExists(imageTag);
+    private String relativeToWorkspace(String pathFromAdapterPerspective) {
+        String relativePath = pathFromAdapterPerspective.substring(workspacePathFromAdapterPerspective.length());
+        return relativePath.isEmpty() ? "." : relativePath.substring(1);
+    }
+
+    private Optional<Path> pathFromRunnerPerspective(String pathFromAdapterPerspective) {
+        if (pathFromAdapterPerspective.equals(workspacePathFromAdapterPerspective)
+                || pathFromAdapterPerspective.startsWith(workspacePathFromAdapterPerspective + "/"))
+            return Optional.of(Paths.get(workspacePathFromRunnerPerspective
+                    + pathFromAdapterPerspective.substring(workspacePathFromAdapterPerspective.length())));
+        return Optional.empty();
     }
 
     @Override
@@ -131,6 +179,7 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
                 .forEachOutput(config.getForEachOutput())
                 .forEachError(config.getForEachError())
                 .buildImage();
+        imageRegistry.built(imageTag);
 
         // TODO get more build options from service
     }
@@ -146,6 +195,7 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
         DockerClient.ContainerCreator containerCreator = dockerClient.containerCreator();
 
         containerCreator.option("--name " + containerName);
+        containerCreator.option("--label " + NAMESPACE_LABEL + "=" + namespace);
 
         containerCreator.option("--network " + networkName);
         containerCreator.option("--hostname " + service.name());
@@ -157,6 +207,8 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
         service.expose().forEach(p -> containerCreator.option("--expose " + p));
         service.groupAdd().forEach(g -> containerCreator.option("--group-add " + g));
         service.user().ifPresent(u -> containerCreator.option("--user " + u));
+        service.cpus().ifPresent(c -> containerCreator.option("--cpus " + c));
+        service.memLimit().ifPresent(m -> containerCreator.option("--memory " + m));
         service.workingDir().ifPresent(w -> containerCreator.option("--workdir " + w));
 
         if (service.entrypointIsReseted())
@@ -225,14 +277,33 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
         ComposeService service = config.getService();
         String containerName = namespace + "_" + service.name();
         setStartedContainer(containerName);
-        DockerClient.ContainerStarter containerStarter = dockerClient.containerStarter()
-                .forEachOutput(config.getForEachOutput())
-                .forEachError(config.getForEachError());
-        int exitCode = containerStarter.startAndGetExitCode(containerName);
+        containerEvents.watch(containerName, config.getOnStarted(), config.getOnHealthy());
+        dockerClient.containerStarter()
+                .forEachOutput(msg -> logger.debug("{}Starting container ... {}", prefix, msg))
+                .forEachError(config.getForEachError())
+                .startDetached(containerName);
+        if (config.isFollowLogs())
+            dockerClient.containerLogger()
+                    .allowFailure()
+                    .forEachOutput(config.getForEachOutput())
+                    .forEachError(config.getForEachError())
+                    .followLogs(containerName);
+        int exitCode = containerEvents.awaitExitCode(containerName);
         setExitedContainers(containerName);
         return exitCode;
     }
 
+    @Override
+    public void fetchLogs(ContainerConfiguration config) {
+        ComposeService service = config.getService();
+        String containerName = namespace + "_" + service.name();
+        dockerClient.containerLogger()
+                .allowFailure()
+                .forEachOutput(config.getForEachOutput())
+                .forEachError(config.getForEachError())
+                .fetchLogs(containerName);
+    }
+
     @Override
     public void stopContainer(ContainerConfiguration config) {
         ComposeService service = config.getService();
@@ -243,6 +314,17 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
                 .stopContainer(containerName);
     }
 
+    @Override
+    public void killContainer(ContainerConfiguration config) {
+        ComposeService service = config.getService();
+        String containerName = namespace + "_" + service.name();
+        dockerClient.containerKiller()
+                .allowFailure()
+                .forEachOutput(config.getForEachOutput())
+                .forEachError(config.getForEachError())
+                .killContainer(containerName);
+    }
+
     private void killContainer(String containerName) {
         final String logPlaceholder = "Killing container '" + containerName + "' ... {}";
         dockerClient.containerKiller()
@@ -253,6 +335,7 @@ public class DockerAdapter implements ContainerRuntimeAdapter {
     }
 
     private void shutdown() {
+        containerEvents.stop();
         synchronized (this) {
             Set<String> containersToKill = new HashSet<>(runningContainers);
             containersToKill.forEach(containerName -> new Thread(() -> killContainer(containerName)).start());
@@ -0,0 +1,140 @@
+package plankton.docker.adapter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import plankton.docker.client.DockerClient;
+import plankton.docker.client.DockerClientException;
+
+class ImageRegistry {
+
+    private final DockerClient dockerClient;
+
+    private final Set<String> existingImages = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<String>> imageIds = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> pullsInFlight = new HashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageRegistry.class);
+
+    ImageRegistry(DockerClient dockerClient) {
+        this.dockerClient = dockerClient;
+    }
+
+    void preload() {
+        try {
+            dockerClient.imageTags().forEach(tag -> existingImages.add(normalized(tag)));
+            logger.debug("Local images: {}", existingImages.size());
+        } catch (DockerClientException e) {
+            logger.warn("Unable to list local images", e);
+        }
+    }
+
+    boolean exists(String imageTag) {
+        if (existingImages.contains(normalized(imageTag)))
+            return true;
+        if (!dockerClient.imageExists(imageTag))
+            return false;
+        existingImages.add(normalized(imageTag));
+        return true;
+    }
+
+    // Tags naming the same image, such as alpine and alpine:latest, share one pull
+    void pull(String imageTag, Runnable puller) {
+        String tag = normalized(imageTag);
+        if (existingImages.contains(tag))
+            return;
+        CompletableFuture<Void> pull;
+        boolean leader = false;
+        synchronized (pullsInFlight) {
+            pull = pullsInFlight.get(tag);
+            if (pull == null) {
+                pull = new CompletableFuture<>();
+                pullsInFlight.put(tag, pull);
+                leader = true;
+            }
+        }
+        if (leader)
+            pullAndComplete(imageTag, puller, pull);
+        else
+            awaitPull(imageTag, pull);
+    }
+
+    private void pullAndComplete(String imageTag, Runnable puller, CompletableFuture<Void> pull) {
+        try {
+            if (!exists(imageTag)) {
+                puller.run();
+                existingImages.add(normalized(imageTag));
+            }
+            pull.complete(null);
+        } catch (RuntimeException e) {
+            pull.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (pullsInFlight) {
+                pullsInFlight.remove(normalized(imageTag));
+            }
+        }
+    }
+
+    private void awaitPull(String imageTag, CompletableFuture<Void> pull) {
+        logger.debug("Waiting for pull in progress: {}", imageTag);
+        try {
+            pull.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerAdapterException("Interrupted while waiting for image pull: " + imageTag, e);
+        } catch (ExecutionException e) {
+            throw new DockerAdapterException("Unable to pull image: " + imageTag, e.getCause());
+        }
+    }
+
+    // The inspect runs outside the map, concurrent callers for the same image wait for its result
+    String imageId(String imageTag) {
+        String tag = normalized(imageTag);
+        CompletableFuture<String> imageId = new CompletableFuture<>();
+        CompletableFuture<String> inFlight = imageIds.putIfAbsent(tag, imageId);
+        if (inFlight != null)
+            return awaitImageId(imageTag, inFlight);
+        try {
+            String id = dockerClient.imageId(imageTag);
+            imageId.complete(id);
+            return id;
+        } catch (RuntimeException e) {
+            imageIds.remove(tag, imageId);
+            imageId.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private String awaitImageId(String imageTag, CompletableFuture<String> imageId) {
+        try {
+            return imageId.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerAdapterException("Interrupted while waiting for image id: " + imageTag, e);
+        } catch (ExecutionException e) {
+            throw new DockerAdapterException("Unable to get image id: " + imageTag, e.getCause());
+        }
+    }
+
+    void built(String imageTag) {
+        imageIds.remove(normalized(imageTag));
+        existingImages.add(normalized(imageTag));
+    }
+
+    private static String normalized(String imageTag) {
+        String name = imageTag.startsWith("docker.io/") ? imageTag.substring("docker.io/".length()) : imageTag;
+        if (name.startsWith("library/"))
+            name = name.substring("library/".length());
+        if (name.contains("@") || name.lastIndexOf(':') > name.lastIndexOf('/'))
+            return name;
+        return name + ":latest";
+    }
+}
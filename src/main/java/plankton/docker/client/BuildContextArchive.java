@@ -0,0 +1,147 @@
+package plankton.docker.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class BuildContextArchive {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final String DOCKERIGNORE = ".dockerignore";
+
+    private final Path context;
+    private final List<IgnorePattern> ignorePatterns = new ArrayList<>();
+
+    private static class IgnorePattern {
+        private final PathMatcher matcher;
+        private final boolean exclusion;
+
+        IgnorePattern(PathMatcher matcher, boolean exclusion) {
+            this.matcher = matcher;
+            this.exclusion = exclusion;
+        }
+    }
+
+    BuildContextArchive(Path context) throws IOException {
+        this.context = context;
+        Path dockerignore = context.resolve(DOCKERIGNORE);
+        if (Files.isRegularFile(dockerignore))
+            Files.readAllLines(dockerignore).forEach(this::addIgnorePattern);
+    }
+
+    private void addIgnorePattern(String line) {
+        String pattern = line.trim();
+        if (pattern.isEmpty() || pattern.startsWith("#"))
+            return;
+        boolean exclusion = pattern.startsWith("!");
+        if (exclusion)
+            pattern = pattern.substring(1).trim();
+        while (pattern.startsWith("/"))
+            pattern = pattern.substring(1);
+        while (pattern.endsWith("/"))
+            pattern = pattern.substring(0, pattern.length() - 1);
+        if (pattern.isEmpty())
+            return;
+        ignorePatterns.add(new IgnorePattern(FileSystems.getDefault().getPathMatcher("glob:" + pattern), exclusion));
+    }
+
+    private boolean isIgnored(Path relativePath) {
+        String name = relativePath.toString();
+        if (name.equals(DOCKERIGNORE) || name.equals("Dockerfile"))
+            return false;
+        boolean ignored = false;
+        for (IgnorePattern pattern : ignorePatterns) {
+            for (Path path = relativePath; path != null; path = path.getParent()) {
+                if (pattern.matcher.matches(path)) {
+                    ignored = !pattern.exclusion;
+                    break;
+                }
+            }
+        }
+        return ignored;
+    }
+
+    void writeTo(OutputStream outputStream, Path extraFile, String extraFileName) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(context)) {
+            paths = walk.filter(path -> !path.equals(context))
+                    .filter(path -> !isIgnored(context.relativize(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path path : paths)
+            writeEntry(outputStream, path, context.relativize(path).toString().replace('\\', '/'));
+        if (extraFile != null)
+            writeEntry(outputStream, extraFile, extraFileName);
+        outputStream.write(new byte[2 * BLOCK_SIZE]);
+    }
+
+    private void writeEntry(OutputStream outputStream, Path path, String name) throws IOException {
+        if (Files.isSymbolicLink(path)) {
+            writeHeader(outputStream, name, 0777, 0, '2', Files.readSymbolicLink(path).toString(), path);
+        } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            writeHeader(outputStream, name + "/", 0755, 0, '5', "", path);
+        } else if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+            long size = Files.size(path);
+            writeHeader(outputStream, name, Files.isExecutable(path) ? 0755 : 0644, size, '0', "", path);
+            long written = Files.copy(path, outputStream);
+            if (written != size)
+                throw new IOException("File changed while archiving build context: " + path);
+            pad(outputStream, size);
+        }
+    }
+
+    private void writeHeader(OutputStream outputStream, String name, int mode, long size, char type,
+            String linkName, Path path) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 100) {
+            writeHeader(outputStream, "././@LongLink", 0644, nameBytes.length + 1L, 'L', "", path);
+            outputStream.write(nameBytes);
+            outputStream.write(0);
+            pad(outputStream, nameBytes.length + 1L);
+        }
+        byte[] header = new byte[BLOCK_SIZE];
+        put(header, 0, 100, nameBytes);
+        putOctal(header, 100, 8, mode);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, Files.getLastModifiedTime(path, LinkOption.NOFOLLOW_LINKS).toMillis() / 1000);
+        for (int i = 148; i < 156; i++)
+            header[i] = ' ';
+        header[156] = (byte) type;
+        put(header, 157, 100, linkName.getBytes(StandardCharsets.UTF_8));
+        put(header, 257, 6, "ustar".getBytes(StandardCharsets.US_ASCII));
+        put(header, 263, 2, "00".getBytes(StandardCharsets.US_ASCII));
+        long checksum = 0;
+        for (byte b : header)
+            checksum += b & 0xff;
+        putOctal(header, 148, 7, checksum);
+        header[155] = ' ';
+        outputStream.write(header);
+    }
+
+    private static void put(byte[] header, int offset, int length, byte[] value) {
+        System.arraycopy(value, 0, header, offset, Math.min(length, value.length));
+    }
+
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = String.format("%0" + (length - 1) + "o", value);
+        put(header, offset, length - 1, octal.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void pad(OutputStream outputStream, long size) throws IOException {
+        int remainder = (int) (size % BLOCK_SIZE);
+        if (remainder != 0)
+            outputStream.write(new byte[BLOCK_SIZE - remainder]);
+    }
+}
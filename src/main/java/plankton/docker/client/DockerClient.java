@@ -2,6 +2,7 @@ package plankton.docker.client;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -22,6 +23,19 @@ public class DockerClient {
         daemon = daemon1;
     }
 
+    public static DockerClient of(DockerDaemon daemon) {
+        Optional<DockerEngineTransport> transport = DockerEngineTransport.of(daemon.socketAddress());
+        if (transport.isPresent())
+            return new DockerEngineClient(daemon, transport.get());
+        LoggerFactory.getLogger(DockerClient.class)
+                .debug("Docker Engine API not available for {}, using docker CLI", daemon.socketAddress());
+        return new DockerClient(daemon);
+    }
+
+    DockerDaemon daemon() {
+        return daemon;
+    }
+
     @SuppressWarnings("unchecked")
     public abstract class Command<T> {
         private final String cmd;
@@ -54,6 +68,24 @@ public class DockerClient {
             return (T) this;
         }
 
+        List<String> options() {
+            return options;
+        }
+
+        Consumer<String> forEachOutput() {
+            return forEachOutput == null ? msg -> {
+            } : forEachOutput;
+        }
+
+        Consumer<String> forEachError() {
+            return forEachError == null ? msg -> {
+            } : forEachError;
+        }
+
+        boolean allowsFailure() {
+            return allowFailure;
+        }
+
         int apply(String args) {
             String opts = String.join(" ", options);
             String line = cmd + " " + opts + " " + args;
@@ -80,7 +112,7 @@ public class DockerClient {
         }
 
         public void pullImage(String tag) {
-            apply(tag);
+            DockerCommandProfiler.shared().timeExitCode(DockerCommandType.PULL, () -> pull(this, tag));
         }
         // TODO credential_spec ???
     }
@@ -98,8 +130,12 @@ public class DockerClient {
             return this;
         }
 
+        String context() {
+            return context;
+        }
+
         public void buildImage() {
-            apply(context);
+            DockerCommandProfiler.shared().timeExitCode(DockerCommandType.BUILD, () -> build(this));
         }
     }
 
@@ -122,8 +158,16 @@ public class DockerClient {
             return this;
         }
 
+        String image() {
+            return image;
+        }
+
+        String args() {
+            return args;
+        }
+
         public void createContainer() {
-            apply(image + " " + args);
+            DockerCommandProfiler.shared().timeExitCode(DockerCommandType.CREATE, () -> create(this));
         }
     }
 
@@ -133,13 +177,9 @@ public class DockerClient {
             super("docker container start");
         }
 
-        public int startAndGetExitCode(String containerName) {
-            allowFailure();
-            return apply("--attach " + containerName);
-        }
-
         public void startDetached(String containerName) {
-            apply("--detach " + containerName);
+            DockerCommandProfiler.shared().timeExitCode(DockerCommandType.START,
+                    () -> DockerClient.this.startDetached(this, containerName));
         }
     }
 
@@ -150,7 +190,7 @@ public class DockerClient {
         }
 
         public void stopContainer(String name) {
-            apply(name);
+            DockerCommandProfiler.shared().timeExitCode(DockerCommandType.STOP, () -> stop(this, name));
         }
     }
 
@@ -161,7 +201,45 @@ public class DockerClient {
         }
 
         public void killContainer(String name) {
-            apply(name);
+            DockerCommandProfiler.shared().timeExitCode(DockerCommandType.KILL, () -> kill(this, name));
+        }
+    }
+
+    public class ContainerLogger extends Command<ContainerLogger> {
+
+        private ContainerLogger() {
+            super("docker container logs");
+        }
+
+        public void followLogs(String containerName) {
+            DockerClient.this.followLogs(this, containerName);
+        }
+
+        public void fetchLogs(String containerName) {
+            DockerCommandProfiler.shared().timeExitCode(DockerCommandType.LOGS,
+                    () -> DockerClient.this.fetchLogs(this, containerName));
+        }
+    }
+
+    public class EventSubscriber extends Command<EventSubscriber> {
+
+        private final List<String> filters = new ArrayList<>();
+
+        private EventSubscriber() {
+            super("docker events");
+        }
+
+        public EventSubscriber filter(String f) {
+            filters.add(f);
+            return this;
+        }
+
+        List<String> filters() {
+            return filters;
+        }
+
+        public void subscribe(long sinceNano, Consumer<DockerEvent> forEachEvent) {
+            subscribeEvents(this, sinceNano, forEachEvent);
         }
     }
 
@@ -172,10 +250,58 @@ public class DockerClient {
         }
 
         public void createAttachableNetwork(String name) {
-            apply("--attachable " + name);
+            DockerCommandProfiler.shared().timeExitCode(DockerCommandType.NETWORK, () -> createNetwork(this, name));
         }
     }
 
+    int pull(ImagePuller command, String tag) {
+        return command.apply(tag);
+    }
+
+    int build(ImageBuilder command) {
+        return command.apply(command.context());
+    }
+
+    int create(ContainerCreator command) {
+        return command.apply(command.image() + " " + command.args());
+    }
+
+    int startDetached(ContainerStarter command, String containerName) {
+        return command.apply("--detach " + containerName);
+    }
+
+    int stop(ContainerStopper command, String containerName) {
+        return command.apply(containerName);
+    }
+
+    int kill(ContainerKiller command, String containerName) {
+        return command.apply(containerName);
+    }
+
+    void followLogs(ContainerLogger command, String containerName) {
+        command.apply("--follow " + containerName);
+    }
+
+    int fetchLogs(ContainerLogger command, String containerName) {
+        return command.apply(containerName);
+    }
+
+    void subscribeEvents(EventSubscriber command, long sinceNano, Consumer<DockerEvent> forEachEvent) {
+        String filters = command.filters().stream()
+                .map(f -> "--filter " + f)
+                .collect(Collectors.joining(" "));
+        command.forEachOutput(line -> DockerEvent.of(line).ifPresent(forEachEvent));
+        command.apply("--format '{{json .}}' --since " + timestampOf(sinceNano) + " " + filters);
+    }
+
+    static String timestampOf(long epochNano) {
+        return String.format("%d.%09d", epochNano / 1_000_000_000L, epochNano % 1_000_000_000L);
+    }
+
+    int createNetwork(NetworkCreator command, String networkName) {
+        return command.apply("--attachable " + networkName);
+    }
+
     public ImagePuller imagePuller() {
         return new ImagePuller();
     }
@@ -200,11 +326,35 @@ public class DockerClient {
         return new ContainerKiller();
     }
 
+    public ContainerLogger containerLogger() {
+        return new ContainerLogger();
+    }
+
+    public EventSubscriber eventSubscriber() {
+        return new EventSubscriber();
+    }
+
     public NetworkCreator networkCreator() {
         return new NetworkCreator();
     }
 
     public boolean imageExists(String imageTag) {
+        return DockerCommandProfiler.shared().time(DockerCommandType.IMAGES, () -> checkImageExists(imageTag));
+    }
+
+    public List<String> imageTags() {
+        return DockerCommandProfiler.shared().time(DockerCommandType.IMAGES, this::listImageTags);
+    }
+
+    public String imageId(String imageTag) {
+        return DockerCommandProfiler.shared().time(DockerCommandType.INSPECT, () -> inspectImageId(imageTag));
+    }
+
+    public String inspectContainerAndGetJson(String containerId) {
+        return DockerCommandProfiler.shared().time(DockerCommandType.INSPECT, () -> inspectContainer(containerId));
+    }
+
+    boolean checkImageExists(String imageTag) {
         logger.debug("Checking if image exists: {}", imageTag);
         List<String> list = new ArrayList<>();
         BashScript script = createBashScript();
@@ -224,7 +374,40 @@ public class DockerClient {
         }
     }
 
-    public String inspectContainerAndGetJson(String containerId) {
+    List<String> listImageTags() {
+        logger.debug("Listing local images");
+        List<String> output = new ArrayList<>();
+        BashScript script = createBashScript();
+        script.command("docker images --format '{{.Repository}}:{{.Tag}}'");
+        script.forEachOutput(output::add);
+        try {
+            script.run();
+        } catch (BashScriptFailedException e) {
+            throw new DockerClientException("Unable to list local images", e);
+        }
+        return output.stream()
+                .map(String::trim)
+                .filter(tag -> !tag.isEmpty() && !tag.contains("<none>"))
+                .collect(Collectors.toList());
+    }
+
+    String inspectImageId(String imageTag) {
+        logger.debug("Getting image id: {}", imageTag);
+        List<String> output = new ArrayList<>();
+        BashScript script = createBashScript();
+        script.command("docker image inspect --format '{{.Id}}' " + imageTag);
+        script.forEachOutput(output::add);
+        try {
+            script.run();
+        } catch (BashScriptFailedException e) {
+            throw new DockerClientException("Unable to get image id: " + imageTag, e);
+        }
+        if (output.size() != 1)
+            throw new DockerClientException("Unable to get image id (unexpected output): " + imageTag);
+        return output.get(0).trim();
+    }
+
+    String inspectContainer(String containerId) {
         List<String> output = new ArrayList<>();
         BashScript script = createBashScript();
         String line = "docker container inspect " + containerId + " | jq '.[0]'";
@@ -0,0 +1,30 @@
+package plankton.docker.client;
+
+import lombok.Getter;
+import plankton.metrics.LatencyHistogram;
+
+@Getter
+public class DockerCommandLatency {
+
+    private final String command;
+    private final String outcome;
+    private final long count;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final double maxMillis;
+
+    DockerCommandLatency(DockerCommandType command, boolean failed, LatencyHistogram micros) {
+        this.command = command.toString();
+        this.outcome = failed ? "failed" : "ok";
+        this.count = micros.count();
+        this.meanMillis = micros.mean() / 1000;
+        this.p50Millis = micros.percentile(50) / 1000.0;
+        this.p90Millis = micros.percentile(90) / 1000.0;
+        this.p99Millis = micros.percentile(99) / 1000.0;
+        this.p999Millis = micros.percentile(99.9) / 1000.0;
+        this.maxMillis = micros.max() / 1000.0;
+    }
+}
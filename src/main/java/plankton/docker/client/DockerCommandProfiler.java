@@ -0,0 +1,131 @@
+package plankton.docker.client;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import plankton.jfr.DockerCommandEvent;
+import plankton.metrics.LatencyHistogram;
+
+/**
+ * Latency of Docker commands, from process spawn or API request to completion, by command type and outcome.
+ */
+public class DockerCommandProfiler {
+
+    private static DockerCommandProfiler shared = new DockerCommandProfiler();
+
+    // Indexed by command type ordinal, then 0 for successful and 1 for failed commands
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[DockerCommandType.values().length][2];
+    private volatile Optional<Path> samplesFile = Optional.empty();
+    private final Queue<String> samples = new ConcurrentLinkedQueue<>();
+    private boolean samplesWritten = false;
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerCommandProfiler.class);
+
+    public DockerCommandProfiler() {
+        for (LatencyHistogram[] outcomes : histograms) {
+            outcomes[0] = new LatencyHistogram();
+            outcomes[1] = new LatencyHistogram();
+        }
+    }
+
+    public static DockerCommandProfiler shared() {
+        return shared;
+    }
+
+    public static void setShared(DockerCommandProfiler profiler) {
+        shared = profiler;
+    }
+
+    public void setSamplesFile(Optional<Path> samplesFile) {
+        this.samplesFile = samplesFile;
+    }
+
+    <T> T time(DockerCommandType type, Supplier<T> command) {
+        return time(type, command, result -> false);
+    }
+
+    // Commands allowed to fail return their exit code instead of throwing, and a non-zero one counts as failed too
+    void timeExitCode(DockerCommandType type, IntSupplier command) {
+        time(type, command::getAsInt, exitCode -> exitCode != 0);
+    }
+
+    private <T> T time(DockerCommandType type, Supplier<T> command, Predicate<T> failedResult) {
+        DockerCommandEvent event = new DockerCommandEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = command.get();
+            failed = failedResult.test(result);
+            return result;
+        } finally {
+            record(type, failed, start, System.nanoTime());
+            event.commit(type, failed);
+        }
+    }
+
+    private void record(DockerCommandType type, boolean failed, long startNanos, long endNanos) {
+        long micros = (endNanos - startNanos) / 1000;
+        histograms[type.ordinal()][failed ? 1 : 0].record(micros);
+        if (samplesFile.isPresent())
+            samples.add(System.currentTimeMillis() + "," + type + "," + (failed ? "failed" : "ok") + "," + micros);
+    }
+
+    public List<DockerCommandLatency> summary() {
+        List<DockerCommandLatency> summary = new ArrayList<>();
+        for (DockerCommandType type : DockerCommandType.values()) {
+            for (int outcome = 0; outcome < 2; outcome++) {
+                LatencyHistogram histogram = histograms[type.ordinal()][outcome];
+                if (histogram.count() > 0)
+                    summary.add(new DockerCommandLatency(type, outcome == 1, histogram));
+            }
+        }
+        return summary;
+    }
+
+    public String report() {
+        StringBuilder builder = new StringBuilder(String.format("%-8s %-7s %7s %9s %9s %9s %9s %9s (ms)",
+                "command", "outcome", "count", "mean", "p50", "p90", "p99", "max"));
+        summary().forEach(latency -> builder.append(String.format("%n%-8s %-7s %7d %9.1f %9.1f %9.1f %9.1f %9.1f",
+                latency.getCommand(), latency.getOutcome(), latency.getCount(), latency.getMeanMillis(),
+                latency.getP50Millis(), latency.getP90Millis(), latency.getP99Millis(), latency.getMaxMillis())));
+        return builder.toString();
+    }
+
+    // Appends the samples recorded since the last call, as epoch millis, command, outcome and microseconds
+    public synchronized void writeSamples() {
+        if (samplesFile.isEmpty() || samples.isEmpty())
+            return;
+        Path path = samplesFile.get();
+        try {
+            Files.createDirectories(path.getParent());
+            boolean header = !samplesWritten;
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardOpenOption.CREATE,
+                    samplesWritten ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+                samplesWritten = true;
+                if (header)
+                    writer.write("epoch_millis,command,outcome,micros\n");
+                String sample;
+                while ((sample = samples.poll()) != null)
+                    writer.write(sample + "\n");
+            }
+            logger.info("Docker command latency samples written to {}", path);
+        } catch (IOException e) {
+            logger.warn("Unable to write Docker command latency samples to {}", path, e);
+        }
+    }
+}
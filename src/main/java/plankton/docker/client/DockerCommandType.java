@@ -0,0 +1,10 @@
+package plankton.docker.client;
+
+public enum DockerCommandType {
+    PULL, BUILD, CREATE, START, STOP, KILL, LOGS, NETWORK, INSPECT, IMAGES;
+
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,570 @@
+package plankton.docker.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import plankton.bash.ShellWords;
+import plankton.compose.serviceprops.MemLimit;
+import plankton.docker.daemon.DockerDaemon;
+
+public class DockerEngineClient extends DockerClient {
+
+    private static final String DOCKER_HUB = "https://index.docker.io/v1/";
+    private static final String EXTRA_DOCKERFILE = ".plankton.Dockerfile";
+    // Options of docker container create translated to the Engine API, others are left to the CLI
+    private static final Set<String> CONTAINER_OPTIONS = Set.of("--name", "--network", "--hostname", "--env", "-e",
+            "--env-file", "--expose", "--group-add", "--user", "-u", "--cpus", "--memory", "-m", "--workdir", "-w",
+            "--entrypoint", "--volume", "-v", "--label", "-l");
+
+    private final DockerEngineTransport transport;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Logger logger = LoggerFactory.getLogger(DockerEngineClient.class);
+
+    DockerEngineClient(DockerDaemon daemon, DockerEngineTransport transport) {
+        super(daemon);
+        this.transport = transport;
+        logger.debug("Using Docker Engine API: {}", transport);
+    }
+
+    @Override
+    int pull(ImagePuller command, String tag) {
+        String[] nameAndTag = splitImageTag(tag);
+        String path = "/images/create?fromImage=" + encode(nameAndTag[0])
+                + (nameAndTag[1].isEmpty() ? "" : "&tag=" + encode(nameAndTag[1]));
+        Map<String, String> headers = new HashMap<>();
+        registryAuth(nameAndTag[0]).ifPresent(auth -> headers.put("X-Registry-Auth", auth));
+        return call(command, "docker image pull " + tag, () -> {
+            try (DockerEngineTransport.Response response = transport.stream("POST", path, headers)) {
+                if (!response.isSuccessful())
+                    return fail(command, "docker image pull " + tag, response);
+                return forEachMessage(command, "docker image pull " + tag, response.body());
+            }
+        });
+    }
+
+    @Override
+    int build(ImageBuilder command) {
+        Optional<List<String>> words = words(String.join(" ", command.options()));
+        if (words.isEmpty()) {
+            logger.debug("Build options are not translated to the Engine API, using docker CLI");
+            return super.build(command);
+        }
+        List<String> tokens = words.get();
+        StringBuilder path = new StringBuilder("/build?rm=1");
+        Path context = Paths.get(command.context());
+        Path extraDockerfile = null;
+        for (int i = 0; i < tokens.size() - 1; i++) {
+            String option = tokens.get(i);
+            String value = tokens.get(i + 1);
+            if (option.equals("-t") || option.equals("--tag")) {
+                path.append("&t=").append(encode(value));
+                i++;
+            } else if (option.equals("-f") || option.equals("--file")) {
+                Path dockerfile = context.resolve(value).normalize();
+                if (dockerfile.startsWith(context.normalize())) {
+                    path.append("&dockerfile=").append(encode(context.normalize().relativize(dockerfile).toString()));
+                } else {
+                    extraDockerfile = dockerfile;
+                    path.append("&dockerfile=").append(EXTRA_DOCKERFILE);
+                }
+                i++;
+            }
+        }
+        Path dockerfileOutsideContext = extraDockerfile;
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/x-tar");
+        String description = "docker image build " + command.context();
+        return call(command, description, () -> {
+            BuildContextArchive archive = new BuildContextArchive(context);
+            try (DockerEngineTransport.Response response = transport.requestChunked("POST", path.toString(),
+                    headers, out -> archive.writeTo(out, dockerfileOutsideContext, EXTRA_DOCKERFILE))) {
+                if (!response.isSuccessful())
+                    return fail(command, description, response);
+                return forEachMessage(command, description, response.body());
+            }
+        });
+    }
+
+    @Override
+    int create(ContainerCreator command) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ObjectNode hostConfig = objectMapper.createObjectNode();
+        String name = null;
+        Optional<List<String>> options = words(String.join(" ", command.options()));
+        Optional<List<String>> args = words(command.args());
+        if (options.isEmpty() || args.isEmpty()) {
+            logger.debug("Container options are not translated to the Engine API, using docker CLI");
+            return super.create(command);
+        }
+        Iterator<String> iterator = options.get().iterator();
+        while (iterator.hasNext()) {
+            String option = iterator.next();
+            String value = null;
+            int equals = option.indexOf('=');
+            if (option.startsWith("--") && equals > 0) {
+                value = option.substring(equals + 1);
+                option = option.substring(0, equals);
+            } else if (iterator.hasNext()) {
+                value = iterator.next();
+            }
+            if (value == null || !CONTAINER_OPTIONS.contains(option)) {
+                logger.debug("Container option {} is not translated to the Engine API, using docker CLI", option);
+                return super.create(command);
+            }
+            switch (option) {
+                case "--name":
+                    name = value;
+                    break;
+                case "--network":
+                    hostConfig.put("NetworkMode", value);
+                    break;
+                case "--hostname":
+                    body.put("Hostname", value);
+                    break;
+                case "--env":
+                case "-e":
+                    environmentVariable(value).ifPresent(array(body, "Env")::add);
+                    break;
+                case "--env-file":
+                    envFile(value).forEach(array(body, "Env")::add);
+                    break;
+                case "--expose":
+                    objectNode(body, "ExposedPorts").putObject(value.contains("/") ? value : value + "/tcp");
+                    break;
+                case "--group-add":
+                    array(hostConfig, "GroupAdd").add(value);
+                    break;
+                case "--user":
+                case "-u":
+                    body.put("User", value);
+                    break;
+                case "--cpus":
+                    hostConfig.put("NanoCpus", Math.round(Double.parseDouble(value) * 1_000_000_000d));
+                    break;
+                case "--memory":
+                case "-m":
+                    hostConfig.put("Memory", MemLimit.bytesOf(value));
+                    break;
+                case "--workdir":
+                case "-w":
+                    body.put("WorkingDir", value);
+                    break;
+                case "--entrypoint":
+                    body.putArray("Entrypoint").add(value);
+                    break;
+                case "--volume":
+                case "-v":
+                    array(hostConfig, "Binds").add(value);
+                    break;
+                case "--label":
+                case "-l":
+                    int separator = value.indexOf('=');
+                    objectNode(body, "Labels").put(separator < 0 ? value : value.substring(0, separator),
+                            separator < 0 ? "" : value.substring(separator + 1));
+                    break;
+                default:
+                    throw new IllegalStateException("Untranslated container option: " + option);
+            }
+        }
+        body.put("Image", command.image());
+        if (!args.get().isEmpty()) {
+            ArrayNode cmd = body.putArray("Cmd");
+            args.get().forEach(cmd::add);
+        }
+        body.put("AttachStdout", true);
+        body.put("AttachStderr", true);
+        body.set("HostConfig", hostConfig);
+        String path = "/containers/create" + (name == null ? "" : "?name=" + encode(name));
+        String description = "docker container create " + (name == null ? command.image() : name);
+        return call(command, description, () -> {
+            try (DockerEngineTransport.Response response = transport.request("POST", path, jsonHeaders(),
+                    objectMapper.writeValueAsBytes(body))) {
+                if (!response.isSuccessful())
+                    return fail(command, description, response);
+                JsonNode created = objectMapper.readTree(response.bodyAsString());
+                created.path("Warnings").forEach(warning -> command.forEachError().accept(warning.asText()));
+                command.forEachOutput().accept(created.path("Id").asText());
+                return 0;
+            }
+        });
+    }
+
+    @Override
+    int startDetached(ContainerStarter command, String containerName) {
+        return simplePost(command, "docker container start " + containerName,
+                "/containers/" + containerName + "/start", containerName);
+    }
+
+    @Override
+    int stop(ContainerStopper command, String containerName) {
+        return simplePost(command, "docker container stop " + containerName,
+                "/containers/" + containerName + "/stop", containerName);
+    }
+
+    @Override
+    int kill(ContainerKiller command, String containerName) {
+        return simplePost(command, "docker container kill " + containerName,
+                "/containers/" + containerName + "/kill", containerName);
+    }
+
+    @Override
+    void followLogs(ContainerLogger command, String containerName) {
+        String description = "docker container logs --follow " + containerName;
+        call(command, description, () -> {
+            try (DockerEngineTransport.Response response = transport.stream("GET",
+                    "/containers/" + containerName + "/logs?follow=1&stdout=1&stderr=1")) {
+                if (!response.isSuccessful())
+                    return fail(command, description, response);
+                demultiplex(response.body(), command.forEachOutput(), command.forEachError());
+                return 0;
+            }
+        });
+    }
+
+    @Override
+    int fetchLogs(ContainerLogger command, String containerName) {
+        String description = "docker container logs " + containerName;
+        return call(command, description, () -> {
+            try (DockerEngineTransport.Response response = transport.request("GET",
+                    "/containers/" + containerName + "/logs?stdout=1&stderr=1")) {
+                if (!response.isSuccessful())
+                    return fail(command, description, response);
+                demultiplex(response.body(), command.forEachOutput(), command.forEachError());
+                return 0;
+            }
+        });
+    }
+
+    @Override
+    void subscribeEvents(EventSubscriber command, long sinceNano, Consumer<DockerEvent> forEachEvent) {
+        Map<String, List<String>> filters = new HashMap<>();
+        command.filters().forEach(filter -> {
+            int equals = filter.indexOf('=');
+            filters.computeIfAbsent(filter.substring(0, equals), key -> new ArrayList<>())
+                    .add(filter.substring(equals + 1));
+        });
+        String description = "docker events";
+        call(command, description, () -> {
+            String path = "/events?since=" + timestampOf(sinceNano) + "&filters="
+                    + encode(objectMapper.writeValueAsString(filters));
+            try (DockerEngineTransport.Response response = transport.stream("GET", path)) {
+                if (!response.isSuccessful())
+                    return fail(command, description, response);
+                try (MappingIterator<JsonNode> events = objectMapper.readerFor(JsonNode.class)
+                        .readValues(response.body())) {
+                    while (events.hasNextValue())
+                        DockerEvent.of(events.nextValue()).ifPresent(forEachEvent);
+                }
+                return 0;
+            }
+        });
+    }
+
+    @Override
+    int createNetwork(NetworkCreator command, String networkName) {
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("Name", networkName);
+        body.put("Attachable", true);
+        body.put("CheckDuplicate", true);
+        String description = "docker network create " + networkName;
+        return call(command, description, () -> {
+            try (DockerEngineTransport.Response response = transport.request("POST", "/networks/create",
+                    jsonHeaders(), objectMapper.writeValueAsBytes(body))) {
+                if (!response.isSuccessful())
+                    return fail(command, description, response);
+                command.forEachOutput().accept(objectMapper.readTree(response.bodyAsString()).path("Id").asText());
+                return 0;
+            }
+        });
+    }
+
+    @Override
+    boolean checkImageExists(String imageTag) {
+        try (DockerEngineTransport.Response response = transport.request("GET", "/images/" + imageTag + "/json")) {
+            if (response.status() == 404)
+                return false;
+            if (!response.isSuccessful())
+                throw new DockerClientException("Unable to check if image exists: " + imageTag + ": "
+                        + errorMessage(response));
+            return true;
+        } catch (IOException e) {
+            throw new DockerClientException("Unable to check if image exists: " + imageTag, e);
+        }
+    }
+
+    @Override
+    List<String> listImageTags() {
+        try (DockerEngineTransport.Response response = transport.request("GET", "/images/json")) {
+            if (!response.isSuccessful())
+                throw new DockerClientException("Unable to list local images: " + errorMessage(response));
+            List<String> tags = new ArrayList<>();
+            objectMapper.readTree(response.bodyAsString()).forEach(image -> image.path("RepoTags")
+                    .forEach(tag -> {
+                        if (!tag.asText().contains("<none>"))
+                            tags.add(tag.asText());
+                    }));
+            return tags;
+        } catch (IOException e) {
+            throw new DockerClientException("Unable to list local images", e);
+        }
+    }
+
+    @Override
+    String inspectImageId(String imageTag) {
+        try (DockerEngineTransport.Response response = transport.request("GET", "/images/" + imageTag + "/json")) {
+            if (!response.isSuccessful())
+                throw new DockerClientException("Unable to get image id: " + imageTag + ": "
+                        + errorMessage(response));
+            return objectMapper.readTree(response.bodyAsString()).path("Id").asText();
+        } catch (IOException e) {
+            throw new DockerClientException("Unable to get image id: " + imageTag, e);
+        }
+    }
+
+    @Override
+    String inspectContainer(String containerId) {
+        try (DockerEngineTransport.Response response = transport.request("GET",
+                "/containers/" + containerId + "/json")) {
+            if (!response.isSuccessful())
+                throw new DockerClientException("Unable to inspect container: " + containerId + ": "
+                        + errorMessage(response));
+            return response.bodyAsString();
+        } catch (IOException e) {
+            throw new DockerClientException("Unable to inspect container: " + containerId, e);
+        }
+    }
+
+    private interface Call {
+        int run() throws IOException;
+    }
+
+    private int call(Command<?> command, String description, Call call) {
+        logger.debug("{} ... Calling Docker Engine API: {}", daemon().getClass().getSimpleName(), description);
+        try {
+            return call.run();
+        } catch (IOException e) {
+            command.forEachError().accept(e.getMessage());
+            if (command.allowsFailure())
+                return 1;
+            throw new DockerClientException("Command failed: " + description, e);
+        }
+    }
+
+    private int simplePost(Command<?> command, String description, String path, String output) {
+        return call(command, description, () -> {
+            try (DockerEngineTransport.Response response = transport.request("POST", path)) {
+                if (!response.isSuccessful() && response.status() != 304)
+                    return fail(command, description, response);
+                command.forEachOutput().accept(output);
+                return 0;
+            }
+        });
+    }
+
+    private int fail(Command<?> command, String description, DockerEngineTransport.Response response)
+            throws IOException {
+        return fail(command, description, errorMessage(response));
+    }
+
+    private int fail(Command<?> command, String description, String message) {
+        command.forEachError().accept(message);
+        if (command.allowsFailure())
+            return 1;
+        throw new DockerClientException("Command failed: " + description + ": " + message);
+    }
+
+    private String errorMessage(DockerEngineTransport.Response response) throws IOException {
+        String body = response.bodyAsString();
+        try {
+            JsonNode message = objectMapper.readTree(body).path("message");
+            if (!message.isMissingNode())
+                return message.asText();
+        } catch (JsonProcessingException e) {
+            logger.debug("Docker Engine error is not JSON: {}", body);
+        }
+        return "HTTP " + response.status() + " " + body.trim();
+    }
+
+    private int forEachMessage(Command<?> command, String description, InputStream body) throws IOException {
+        try (MappingIterator<JsonNode> messages = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (messages.hasNextValue()) {
+                JsonNode message = messages.nextValue();
+                if (message.has("error"))
+                    return fail(command, description, message.path("error").asText());
+                if (message.has("stream")) {
+                    String stream = message.path("stream").asText();
+                    for (String line : stream.split("\n"))
+                        if (!line.isBlank())
+                            command.forEachOutput().accept(line);
+                } else if (message.has("status") && !message.has("progress")) {
+                    String id = message.path("id").asText("");
+                    command.forEachOutput().accept((id.isEmpty() ? "" : id + ": ") + message.path("status").asText());
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static void demultiplex(InputStream body, Consumer<String> forEachOutput,
+            Consumer<String> forEachError) throws IOException {
+        DataInputStream input = new DataInputStream(body);
+        LineBuffer output = new LineBuffer(forEachOutput);
+        LineBuffer error = new LineBuffer(forEachError);
+        byte[] header = new byte[8];
+        byte[] payload = new byte[8 * 1024];
+        while (true) {
+            try {
+                input.readFully(header);
+            } catch (EOFException e) {
+                break;
+            }
+            int size = ((header[4] & 0xff) << 24) | ((header[5] & 0xff) << 16) | ((header[6] & 0xff) << 8)
+                    | (header[7] & 0xff);
+            LineBuffer lines = header[0] == 2 ? error : output;
+            while (size > 0) {
+                int n = Math.min(size, payload.length);
+                input.readFully(payload, 0, n);
+                lines.write(payload, n);
+                size -= n;
+            }
+        }
+        output.flush();
+        error.flush();
+    }
+
+    private static class LineBuffer {
+
+        private final Consumer<String> consumer;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        LineBuffer(Consumer<String> consumer) {
+            this.consumer = consumer;
+        }
+
+        void write(byte[] bytes, int length) {
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n')
+                    flush();
+                else if (bytes[i] != '\r')
+                    line.write(bytes[i]);
+            }
+        }
+
+        void flush() {
+            if (line.size() > 0)
+                consumer.accept(line.toString(StandardCharsets.UTF_8));
+            line.reset();
+        }
+    }
+
+    private Map<String, String> jsonHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        return headers;
+    }
+
+    private static ArrayNode array(ObjectNode node, String field) {
+        return node.has(field) ? (ArrayNode) node.get(field) : node.putArray(field);
+    }
+
+    private static ObjectNode objectNode(ObjectNode node, String field) {
+        return node.has(field) ? (ObjectNode) node.get(field) : node.putObject(field);
+    }
+
+    private static List<String> envFile(String file) {
+        List<String> variables = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Paths.get(file))) {
+                String variable = line.trim();
+                if (!variable.isEmpty() && !variable.startsWith("#"))
+                    environmentVariable(variable).ifPresent(variables::add);
+            }
+        } catch (IOException e) {
+            throw new DockerClientException("Unable to read env file: " + file, e);
+        }
+        return variables;
+    }
+
+    // Like the docker CLI, a variable without value is taken from the environment, and left out when not set there
+    private static Optional<String> environmentVariable(String variable) {
+        if (variable.contains("="))
+            return Optional.of(variable);
+        return Optional.ofNullable(System.getenv(variable)).map(value -> variable + "=" + value);
+    }
+
+    private static String[] splitImageTag(String image) {
+        if (image.contains("@"))
+            return new String[] { image, "" };
+        int colon = image.lastIndexOf(':');
+        if (colon > image.lastIndexOf('/'))
+            return new String[] { image.substring(0, colon), image.substring(colon + 1) };
+        return new String[] { image, "latest" };
+    }
+
+    private Optional<String> registryAuth(String imageName) {
+        String firstComponent = imageName.contains("/") ? imageName.substring(0, imageName.indexOf('/')) : "";
+        boolean privateRegistry = firstComponent.contains(".") || firstComponent.contains(":")
+                || firstComponent.equals("localhost");
+        String registry = privateRegistry ? firstComponent : DOCKER_HUB;
+        String configDirectory = System.getenv("DOCKER_CONFIG") != null
+                ? System.getenv("DOCKER_CONFIG")
+                : System.getProperty("user.home") + "/.docker";
+        Path config = Paths.get(configDirectory, "config.json");
+        if (!Files.isRegularFile(config))
+            return Optional.empty();
+        try {
+            JsonNode auth = objectMapper.readTree(config.toFile()).path("auths").path(registry).path("auth");
+            if (auth.isMissingNode())
+                return Optional.empty();
+            String credentials = new String(Base64.getDecoder().decode(auth.asText()), StandardCharsets.UTF_8);
+            int colon = credentials.indexOf(':');
+            if (colon < 0)
+                return Optional.empty();
+            ObjectNode registryAuth = objectMapper.createObjectNode();
+            registryAuth.put("username", credentials.substring(0, colon));
+            registryAuth.put("password", credentials.substring(colon + 1));
+            registryAuth.put("serveraddress", registry);
+            return Optional.of(Base64.getUrlEncoder().encodeToString(objectMapper.writeValueAsBytes(registryAuth)));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("Unable to read registry credentials from {}", config, e);
+            return Optional.empty();
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // The options are a bash command line in the CLI path, so they are split and expanded like bash would
+    private static Optional<List<String>> words(String line) {
+        return ShellWords.words(line, System::getenv);
+    }
+}
@@ -0,0 +1,540 @@
+package plankton.docker.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class DockerEngineTransport {
+
+    private static final int MAX_IDLE_CONNECTIONS = 16;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    // Streaming requests (pulls, builds, attach, wait, follow, events) have no read timeout
+    private static final int READ_TIMEOUT_MILLIS = 60_000;
+    private static final String API_VERSION = "/v1.40";
+
+    private final String socketAddress;
+    private final Connector connector;
+    private final Deque<Connection> idleConnections = new ArrayDeque<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerEngineTransport.class);
+
+    interface BodyWriter {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+
+    private interface Connector {
+        Connection connect() throws IOException;
+    }
+
+    private interface ReadTimeout {
+        void set(int millis) throws IOException;
+    }
+
+    private DockerEngineTransport(String socketAddress, Connector connector) {
+        this.socketAddress = socketAddress;
+        this.connector = connector;
+    }
+
+    static Optional<DockerEngineTransport> of(String socketAddress) {
+        if (socketAddress == null)
+            return Optional.empty();
+        if (socketAddress.startsWith("tcp://")) {
+            URI uri = URI.create(socketAddress);
+            InetSocketAddress address = new InetSocketAddress(uri.getHost(), uri.getPort() < 0 ? 2375 : uri.getPort());
+            return Optional.of(new DockerEngineTransport(socketAddress, () -> tcpConnection(address)));
+        }
+        if (socketAddress.startsWith("unix://")) {
+            String path = socketAddress.substring("unix://".length());
+            return unixSocketAddress(path).map(address -> new DockerEngineTransport(socketAddress,
+                    () -> unixConnection(address)));
+        }
+        return Optional.empty();
+    }
+
+    private static Connection tcpConnection(InetSocketAddress address) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(address, CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        return new Connection(socket, socket.getInputStream(), socket.getOutputStream(), socket::setSoTimeout);
+    }
+
+    private static Optional<SocketAddress> unixSocketAddress(String path) {
+        try {
+            return Optional.of((SocketAddress) Class.forName("java.net.UnixDomainSocketAddress")
+                    .getMethod("of", String.class).invoke(null, path));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+                | InvocationTargetException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Connection unixConnection(SocketAddress address) throws IOException {
+        SocketChannel channel;
+        try {
+            channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class)
+                    .invoke(null, StandardProtocolFamily.valueOf("UNIX"));
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IOException("Unix domain sockets are not supported", e);
+        }
+        TimedChannel timedChannel;
+        try {
+            timedChannel = new TimedChannel(channel);
+            timedChannel.connect(address);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Connection(timedChannel, timedChannel.input, timedChannel.output, timedChannel::readTimeout);
+    }
+
+    // Socket channels have no socket timeouts, so the unix socket is used in non-blocking mode with a selector
+    private static class TimedChannel implements Closeable {
+
+        private final SocketChannel channel;
+        private final Selector selector;
+        private final SelectionKey key;
+        private int readTimeoutMillis = 0;
+
+        final InputStream input = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0)
+                    return 0;
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, length);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeoutMillis);
+                int n;
+                while ((n = channel.read(byteBuffer)) == 0)
+                    await(SelectionKey.OP_READ, readTimeoutMillis == 0 ? 0 : deadline);
+                return n;
+            }
+        };
+
+        final OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, length);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READ_TIMEOUT_MILLIS);
+                while (byteBuffer.hasRemaining())
+                    if (channel.write(byteBuffer) == 0)
+                        await(SelectionKey.OP_WRITE, deadline);
+            }
+        };
+
+        TimedChannel(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            channel.configureBlocking(false);
+            selector = Selector.open();
+            key = channel.register(selector, 0);
+        }
+
+        void connect(SocketAddress address) throws IOException {
+            if (channel.connect(address))
+                return;
+            await(SelectionKey.OP_CONNECT,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS));
+            channel.finishConnect();
+        }
+
+        void readTimeout(int millis) {
+            readTimeoutMillis = millis;
+        }
+
+        // A deadline of 0 waits without timeout
+        private void await(int operation, long deadline) throws IOException {
+            try {
+                key.interestOps(operation);
+                while (true) {
+                    long remainingMillis = deadline == 0 ? 0
+                            : TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (deadline != 0 && remainingMillis <= 0)
+                        throw new SocketTimeoutException("Timed out waiting for Docker Engine");
+                    if (selector.select(remainingMillis) > 0) {
+                        selector.selectedKeys().clear();
+                        return;
+                    }
+                    if (!channel.isOpen())
+                        throw new ClosedChannelException();
+                }
+            } catch (ClosedSelectorException | CancelledKeyException e) {
+                throw new ClosedChannelException();
+            }
+        }
+
+        // Closing the selector also wakes up a thread waiting in it
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                selector.close();
+            }
+        }
+    }
+
+    Response request(String method, String path) throws IOException {
+        return request(method, path, null, null);
+    }
+
+    Response request(String method, String path, Map<String, String> headers, byte[] body) throws IOException {
+        Connection connection = idleConnection();
+        if (connection != null) {
+            try {
+                return send(connection, method, path, headers, body, false);
+            } catch (SocketTimeoutException e) {
+                throw e;
+            } catch (IOException e) {
+                logger.debug("Idle connection to {} is no longer usable", socketAddress, e);
+                connection.close();
+            }
+        }
+        return send(connector.connect(), method, path, headers, body, false);
+    }
+
+    // The response of a stream is read without timeout and its connection is closed instead of drained
+    Response stream(String method, String path) throws IOException {
+        return stream(method, path, null);
+    }
+
+    Response stream(String method, String path, Map<String, String> headers) throws IOException {
+        return send(connector.connect(), method, path, headers, null, true);
+    }
+
+    Response requestChunked(String method, String path, Map<String, String> headers, BodyWriter bodyWriter)
+            throws IOException {
+        Connection connection = connector.connect();
+        try {
+            connection.readTimeout.set(0);
+            connection.writeHead(method, path, headers, "Transfer-Encoding: chunked\r\n");
+            try (OutputStream chunked = new BufferedOutputStream(new ChunkedOutputStream(connection.output),
+                    64 * 1024)) {
+                bodyWriter.writeTo(chunked);
+            }
+            connection.output.flush();
+            return connection.readResponse(this, true);
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private Response send(Connection connection, String method, String path, Map<String, String> headers,
+            byte[] body, boolean streaming) throws IOException {
+        try {
+            connection.readTimeout.set(streaming ? 0 : READ_TIMEOUT_MILLIS);
+            byte[] bytes = body == null ? new byte[0] : body;
+            connection.writeHead(method, path, headers, "Content-Length: " + bytes.length + "\r\n");
+            connection.output.write(bytes);
+            connection.output.flush();
+            return connection.readResponse(this, streaming);
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private Connection idleConnection() {
+        synchronized (idleConnections) {
+            return idleConnections.pollFirst();
+        }
+    }
+
+    private void release(Connection connection) {
+        synchronized (idleConnections) {
+            if (idleConnections.size() < MAX_IDLE_CONNECTIONS) {
+                idleConnections.addFirst(connection);
+                return;
+            }
+        }
+        connection.close();
+    }
+
+    @Override
+    public String toString() {
+        return DockerEngineTransport.class.getSimpleName() + "(" + socketAddress + ")";
+    }
+
+    private static class Connection {
+
+        private final Closeable socket;
+        private final InputStream input;
+        private final OutputStream output;
+        private final ReadTimeout readTimeout;
+
+        Connection(Closeable socket, InputStream input, OutputStream output, ReadTimeout readTimeout) {
+            this.socket = socket;
+            this.input = new BufferedInputStream(input, 64 * 1024);
+            this.output = new BufferedOutputStream(output, 16 * 1024);
+            this.readTimeout = readTimeout;
+        }
+
+        void writeHead(String method, String path, Map<String, String> headers, String bodyHeaders)
+                throws IOException {
+            StringBuilder head = new StringBuilder();
+            head.append(method).append(' ').append(API_VERSION).append(path).append(" HTTP/1.1\r\n");
+            head.append("Host: docker\r\n");
+            if (headers != null)
+                headers.forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+            head.append(bodyHeaders).append("\r\n");
+            output.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        Response readResponse(DockerEngineTransport transport, boolean streaming) throws IOException {
+            String statusLine = readLine(input);
+            String[] parts = statusLine.split(" ", 3);
+            if (parts.length < 2 || !parts[0].startsWith("HTTP/"))
+                throw new IOException("Unexpected response from Docker Engine: " + statusLine);
+            int status = Integer.parseInt(parts[1]);
+            Map<String, String> headers = new HashMap<>();
+            String line;
+            while (!(line = readLine(input)).isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0)
+                    headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                            line.substring(colon + 1).trim());
+            }
+            return new Response(transport, this, status, headers, streaming);
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close connection", e);
+            }
+        }
+    }
+
+    static class Response implements Closeable {
+
+        private final DockerEngineTransport transport;
+        private final Connection connection;
+        private final int status;
+        private final InputStream body;
+        private final boolean reusable;
+
+        private Response(DockerEngineTransport transport, Connection connection, int status,
+                Map<String, String> headers, boolean streaming) {
+            this.transport = transport;
+            this.connection = connection;
+            this.status = status;
+            String transferEncoding = headers.getOrDefault("transfer-encoding", "");
+            String contentLength = headers.get("content-length");
+            // A stream may never end, so draining it to reuse the connection could block forever
+            boolean keepAlive = !streaming && !"close".equalsIgnoreCase(headers.getOrDefault("connection", ""));
+            if (transferEncoding.equalsIgnoreCase("chunked")) {
+                body = new ChunkedInputStream(connection.input);
+                reusable = keepAlive;
+            } else if (contentLength != null) {
+                body = new BoundedInputStream(connection.input, Long.parseLong(contentLength));
+                reusable = keepAlive;
+            } else if (status == 204 || status == 304) {
+                body = new BoundedInputStream(connection.input, 0);
+                reusable = keepAlive;
+            } else {
+                body = connection.input;
+                reusable = false;
+            }
+        }
+
+        int status() {
+            return status;
+        }
+
+        boolean isSuccessful() {
+            return status >= 200 && status < 300;
+        }
+
+        InputStream body() {
+            return body;
+        }
+
+        String bodyAsString() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            body.transferTo(bytes);
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() {
+            if (!reusable) {
+                connection.close();
+                return;
+            }
+            try {
+                body.transferTo(OutputStream.nullOutputStream());
+                transport.release(connection);
+            } catch (IOException e) {
+                connection.close();
+            }
+        }
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = input.read()) != '\n') {
+            if (b < 0)
+                throw new EOFException("Connection closed by Docker Engine");
+            if (b != '\r')
+                line.write(b);
+        }
+        return line.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    private static class BoundedInputStream extends InputStream {
+
+        private final InputStream input;
+        private long remaining;
+
+        BoundedInputStream(InputStream input, long length) {
+            this.input = input;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0)
+                return -1;
+            int b = input.read();
+            if (b < 0)
+                throw new EOFException("Unexpected end of response body");
+            remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0)
+                return -1;
+            int n = input.read(buffer, offset, (int) Math.min(length, remaining));
+            if (n < 0)
+                throw new EOFException("Unexpected end of response body");
+            remaining -= n;
+            return n;
+        }
+    }
+
+    private static class ChunkedInputStream extends InputStream {
+
+        private final InputStream input;
+        private long remainingInChunk = 0;
+        private boolean finished = false;
+
+        ChunkedInputStream(InputStream input) {
+            this.input = input;
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (finished)
+                return false;
+            if (remainingInChunk == 0) {
+                String size = readLine(input);
+                int extension = size.indexOf(';');
+                remainingInChunk = Long.parseLong((extension < 0 ? size : size.substring(0, extension)).trim(), 16);
+                if (remainingInChunk == 0) {
+                    while (!readLine(input).isEmpty()) {
+                        // trailers
+                    }
+                    finished = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (!nextChunk())
+                return -1;
+            int n = input.read(buffer, offset, (int) Math.min(length, remainingInChunk));
+            if (n < 0)
+                throw new EOFException("Unexpected end of chunked response body");
+            remainingInChunk -= n;
+            if (remainingInChunk == 0)
+                readLine(input);
+            return n;
+        }
+    }
+
+    private static class ChunkedOutputStream extends FilterOutputStream {
+
+        ChunkedOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0)
+                return;
+            out.write((Integer.toHexString(length) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.write(buffer, offset, length);
+            out.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.write("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package plankton.docker.client;
+
+import java.util.Optional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class DockerEvent {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String action;
+    private final String containerName;
+    private final Integer exitCode;
+    private final long timeNano;
+
+    private DockerEvent(String action, String containerName, Integer exitCode, long timeNano) {
+        this.action = action;
+        this.containerName = containerName;
+        this.exitCode = exitCode;
+        this.timeNano = timeNano;
+    }
+
+    static Optional<DockerEvent> of(String json) {
+        try {
+            return of(objectMapper.readTree(json));
+        } catch (JsonProcessingException e) {
+            return Optional.empty();
+        }
+    }
+
+    static Optional<DockerEvent> of(JsonNode event) {
+        String action = event.path("Action").asText(event.path("status").asText(""));
+        JsonNode attributes = event.path("Actor").path("Attributes");
+        String containerName = attributes.path("name").asText("");
+        if (action.isEmpty() || containerName.isEmpty())
+            return Optional.empty();
+        JsonNode exitCode = attributes.path("exitCode");
+        return Optional.of(new DockerEvent(action, containerName,
+                exitCode.isMissingNode() ? null : Integer.valueOf(exitCode.asText()),
+                event.path("timeNano").asLong()));
+    }
+
+    public boolean isStart() {
+        return action.equals("start");
+    }
+
+    public boolean isDie() {
+        return action.equals("die");
+    }
+
+    public boolean isHealthy() {
+        return action.equals("health_status: healthy");
+    }
+}
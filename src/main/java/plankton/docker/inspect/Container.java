@@ -15,4 +15,7 @@ public class Container {
 
     @JsonProperty("Mounts")
     List<ContainerMount> mounts;
+
+    @JsonProperty("State")
+    ContainerState state;
 }
@@ -0,0 +1,162 @@
+package plankton.executor;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class PlanktonExecutor {
+
+    private static final int DEFAULT_MAX_THREADS = 256;
+    private static final int DEFAULT_PULL_THREADS = 4;
+
+    private static volatile PlanktonExecutor jobExecutor = create("jobs", DEFAULT_MAX_THREADS, true);
+    private static volatile PlanktonExecutor streamExecutor = create("streams", DEFAULT_MAX_THREADS, true);
+    private static volatile PlanktonExecutor pullExecutor = create("pulls", DEFAULT_PULL_THREADS, false);
+    private static volatile PlanktonExecutor controlExecutor = createUnbounded("control", true);
+
+    private final String name;
+    private final ExecutorService executorService;
+
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanktonExecutor.class);
+
+    public PlanktonExecutor(String name, ExecutorService executorService) {
+        this.name = name;
+        this.executorService = executorService;
+    }
+
+    public static PlanktonExecutor create(String name, int maxThreads, boolean virtualThreadsIfAvailable) {
+        if (virtualThreadsIfAvailable) {
+            Optional<ExecutorService> virtualThreadExecutor = virtualThreadExecutor();
+            if (virtualThreadExecutor.isPresent())
+                return new PlanktonExecutor(name, virtualThreadExecutor.get());
+        }
+        return new PlanktonExecutor(name, boundedThreadPool(name, maxThreads));
+    }
+
+    // For tasks that must not wait behind the tasks of a bounded executor, such as stopping the containers of hung
+    // jobs
+    public static PlanktonExecutor createUnbounded(String name, boolean virtualThreadsIfAvailable) {
+        if (virtualThreadsIfAvailable) {
+            Optional<ExecutorService> virtualThreadExecutor = virtualThreadExecutor();
+            if (virtualThreadExecutor.isPresent())
+                return new PlanktonExecutor(name, virtualThreadExecutor.get());
+        }
+        return new PlanktonExecutor(name, new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), threadFactory(name)));
+    }
+
+    private static Optional<ExecutorService> virtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static ExecutorService boundedThreadPool(String name, int maxThreads) {
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(maxThreads, maxThreads, 10L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory(name));
+        threadPool.allowCoreThreadTimeOut(true);
+        return threadPool;
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "plankton-" + name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static PlanktonExecutor jobExecutor() {
+        return jobExecutor;
+    }
+
+    public static void setJobExecutor(PlanktonExecutor executor) {
+        jobExecutor = executor;
+    }
+
+    public static PlanktonExecutor streamExecutor() {
+        return streamExecutor;
+    }
+
+    public static void setStreamExecutor(PlanktonExecutor executor) {
+        streamExecutor = executor;
+    }
+
+    public static PlanktonExecutor pullExecutor() {
+        return pullExecutor;
+    }
+
+    public static void setPullExecutor(PlanktonExecutor executor) {
+        pullExecutor = executor;
+    }
+
+    public static PlanktonExecutor controlExecutor() {
+        return controlExecutor;
+    }
+
+    public static void setControlExecutor(PlanktonExecutor executor) {
+        controlExecutor = executor;
+    }
+
+    public PlanktonTask execute(String taskName, Runnable runnable) {
+        return execute(taskName, runnable,
+                (thread, e) -> logger.error("{} ... Exception thrown by {}", this, taskName, e));
+    }
+
+    public PlanktonTask execute(String taskName, Runnable runnable,
+            UncaughtExceptionHandler uncaughtExceptionHandler) {
+        PlanktonTask task = new PlanktonTask(taskName, runnable, uncaughtExceptionHandler);
+        queuedTasks.incrementAndGet();
+        executorService.execute(() -> {
+            queuedTasks.decrementAndGet();
+            activeTasks.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                activeTasks.decrementAndGet();
+            }
+        });
+        return task;
+    }
+
+    public int threadCount() {
+        return executorService instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) executorService).getPoolSize()
+                : activeTasks.get();
+    }
+
+    public int queueDepth() {
+        return queuedTasks.get();
+    }
+
+    public int activeTasks() {
+        return activeTasks.get();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return PlanktonExecutor.class.getSimpleName() + "[" + name + "]";
+    }
+}
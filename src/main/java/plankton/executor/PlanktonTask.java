@@ -0,0 +1,60 @@
+package plankton.executor;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PlanktonTask {
+
+    private final String name;
+    private final Runnable runnable;
+    private final UncaughtExceptionHandler uncaughtExceptionHandler;
+
+    private Thread thread = null;
+    private boolean interrupted = false;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    PlanktonTask(String name, Runnable runnable, UncaughtExceptionHandler uncaughtExceptionHandler) {
+        this.name = name;
+        this.runnable = runnable;
+        this.uncaughtExceptionHandler = uncaughtExceptionHandler;
+    }
+
+    void run() {
+        synchronized (this) {
+            thread = Thread.currentThread();
+            if (interrupted)
+                thread.interrupt();
+        }
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            uncaughtExceptionHandler.uncaughtException(Thread.currentThread(), e);
+        } finally {
+            synchronized (this) {
+                thread = null;
+            }
+            Thread.interrupted();
+            finished.countDown();
+        }
+    }
+
+    public synchronized void interrupt() {
+        interrupted = true;
+        if (thread != null)
+            thread.interrupt();
+    }
+
+    public void join() throws InterruptedException {
+        finished.await();
+    }
+
+    public boolean join(long timeoutMillis) throws InterruptedException {
+        return finished.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,266 @@
+package plankton.executor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pumps the output of child processes on a fixed number of threads. Process pipes cannot be selected in the JDK, so
+ * each thread polls available() on its streams and only reads what is already there, backing off while they are all
+ * idle. Once the process of a stream has exited with nothing left available, the stream is handed over to a blocking
+ * drain on the stream executor: its end is usually read at once, but a grandchild that inherited the pipe can keep
+ * it open, and must not stall the other streams of a pump thread.
+ */
+public class StreamPump {
+
+    private static final int DEFAULT_THREADS = 2;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_LINE_BUFFER_SIZE = 256;
+    private static final int MAX_LINE_LENGTH = 1024 * 1024;
+    private static final long MIN_IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final int END_OF_STREAM = -1;
+    private static final int PROCESS_EXITED = -2;
+
+    private static StreamPump shared = new StreamPump(DEFAULT_THREADS);
+
+    private final Worker[] workers;
+    private final AtomicInteger drainedStreams = new AtomicInteger();
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamPump.class);
+
+    public StreamPump(int threads) {
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker();
+            Thread thread = new Thread(workers[i], "plankton-stream-pump-" + (i + 1));
+            thread.setDaemon(true);
+            workers[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    public static StreamPump shared() {
+        return shared;
+    }
+
+    public static void setShared(StreamPump streamPump) {
+        shared = streamPump;
+    }
+
+    public PumpedStream pump(String name, Process process, InputStream inputStream, Consumer<String> forEachLine) {
+        PumpedStream stream = new PumpedStream(name, process, inputStream, forEachLine);
+        try {
+            inputStream.available();
+        } catch (IOException e) {
+            logger.debug("{} ... Non-blocking reads not supported, falling back to a stream thread", stream);
+            drainOnStreamExecutor(stream);
+            return stream;
+        }
+        Worker worker = Arrays.stream(workers)
+                .min((a, b) -> Integer.compare(a.load.get(), b.load.get()))
+                .orElseThrow();
+        stream.worker = worker;
+        worker.add(stream);
+        return stream;
+    }
+
+    private void drainOnStreamExecutor(PumpedStream stream) {
+        drainedStreams.incrementAndGet();
+        PlanktonExecutor.streamExecutor().execute(stream.name, () -> {
+            try {
+                stream.drain();
+            } finally {
+                drainedStreams.decrementAndGet();
+            }
+        });
+    }
+
+    public int activeStreams() {
+        return Arrays.stream(workers).mapToInt(worker -> worker.load.get()).sum() + drainedStreams.get();
+    }
+
+    private class Worker implements Runnable {
+
+        private Thread thread;
+        private final AtomicInteger load = new AtomicInteger();
+        private final Queue<PumpedStream> added = new ConcurrentLinkedQueue<>();
+        private final List<PumpedStream> streams = new ArrayList<>();
+        private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        private volatile boolean woken = false;
+
+        void wakeUp() {
+            woken = true;
+            LockSupport.unpark(thread);
+        }
+
+        void add(PumpedStream stream) {
+            load.incrementAndGet();
+            added.add(stream);
+            LockSupport.unpark(thread);
+            stream.process.onExit().thenRun(() -> LockSupport.unpark(thread));
+        }
+
+        @Override
+        public void run() {
+            long idleNanos = MIN_IDLE_NANOS;
+            while (true) {
+                PumpedStream stream;
+                while ((stream = added.poll()) != null)
+                    streams.add(stream);
+                if (streams.isEmpty()) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                boolean progress = false;
+                for (Iterator<PumpedStream> iterator = streams.iterator(); iterator.hasNext();) {
+                    PumpedStream pumpedStream = iterator.next();
+                    int read = pumpedStream.pumpAvailable(readBuffer);
+                    if (read < 0) {
+                        iterator.remove();
+                        load.decrementAndGet();
+                        if (read == PROCESS_EXITED)
+                            drainOnStreamExecutor(pumpedStream);
+                    }
+                    progress |= read != 0;
+                }
+                if (progress || woken) {
+                    woken = false;
+                    idleNanos = MIN_IDLE_NANOS;
+                } else {
+                    LockSupport.parkNanos(this, idleNanos);
+                    idleNanos = Math.min(idleNanos * 2, MAX_IDLE_NANOS);
+                }
+            }
+        }
+    }
+
+    public static class PumpedStream {
+
+        private final String name;
+        private final Process process;
+        private final InputStream inputStream;
+        private Consumer<String> forEachLine;
+        private Worker worker;
+
+        private byte[] lineBuffer = new byte[INITIAL_LINE_BUFFER_SIZE];
+        private int lineLength = 0;
+        private boolean afterCarriageReturn = false;
+
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private PumpedStream(String name, Process process, InputStream inputStream, Consumer<String> forEachLine) {
+            this.name = name;
+            this.process = process;
+            this.inputStream = inputStream;
+            this.forEachLine = forEachLine;
+        }
+
+        // Reads only what is available: the next read could block once the process has exited, while a
+        // grandchild keeps the pipe open
+        int pumpAvailable(byte[] readBuffer) {
+            try {
+                int available = inputStream.available();
+                if (available == 0)
+                    return process.isAlive() ? 0 : PROCESS_EXITED;
+                int read = inputStream.read(readBuffer, 0, Math.min(available, readBuffer.length));
+                if (read < 0) {
+                    finish();
+                    return END_OF_STREAM;
+                }
+                split(readBuffer, read);
+                return read;
+            } catch (IOException e) {
+                logger.error("{} ... Unable to read stream", this, e);
+                finish();
+                return END_OF_STREAM;
+            }
+        }
+
+        void drain() {
+            byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+            try {
+                int read;
+                while ((read = inputStream.read(readBuffer)) >= 0)
+                    split(readBuffer, read);
+            } catch (IOException e) {
+                logger.error("{} ... Unable to read stream", this, e);
+            } finally {
+                finish();
+            }
+        }
+
+        private void split(byte[] bytes, int length) {
+            for (int i = 0; i < length; i++) {
+                byte b = bytes[i];
+                if (b == '\n' && afterCarriageReturn) {
+                    afterCarriageReturn = false;
+                } else if (b == '\n' || b == '\r') {
+                    afterCarriageReturn = b == '\r';
+                    deliverLine();
+                } else {
+                    afterCarriageReturn = false;
+                    if (lineLength == lineBuffer.length) {
+                        if (lineLength >= MAX_LINE_LENGTH)
+                            deliverLine();
+                        else
+                            lineBuffer = Arrays.copyOf(lineBuffer, Math.min(lineLength * 2, MAX_LINE_LENGTH));
+                    }
+                    lineBuffer[lineLength++] = b;
+                }
+            }
+        }
+
+        private void deliverLine() {
+            String line = new String(lineBuffer, 0, lineLength, StandardCharsets.UTF_8);
+            lineLength = 0;
+            if (forEachLine == null)
+                return;
+            try {
+                forEachLine.accept(line);
+            } catch (RuntimeException e) {
+                logger.error("{} ... Exception thrown by line consumer, discarding the rest of the stream", this, e);
+                forEachLine = null;
+            }
+        }
+
+        private void finish() {
+            if (lineLength > 0)
+                deliverLine();
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                logger.debug("{} ... Unable to close stream", this, e);
+            }
+            finished.countDown();
+        }
+
+        public void join() throws InterruptedException {
+            finished.await();
+        }
+
+        public void wakeUp() {
+            if (worker != null)
+                worker.wakeUp();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
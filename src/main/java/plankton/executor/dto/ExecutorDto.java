@@ -0,0 +1,20 @@
+package plankton.executor.dto;
+
+import lombok.Data;
+import plankton.executor.PlanktonExecutor;
+
+@Data
+public class ExecutorDto {
+
+    String name;
+    int threads;
+    int queuedTasks;
+    int activeTasks;
+
+    public ExecutorDto(PlanktonExecutor executor) {
+        this.name = executor.name();
+        this.threads = executor.threadCount();
+        this.queuedTasks = executor.queueDepth();
+        this.activeTasks = executor.activeTasks();
+    }
+}
@@ -0,0 +1,46 @@
+package plankton.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("plankton.BashScript")
+@Label("Bash Script")
+@Description("Lifetime of a script process, or of a script run by a pooled shell")
+@Category("Plankton")
+public class BashScriptEvent extends Event {
+
+    @Label("Job")
+    String job;
+
+    @Label("Namespace")
+    String namespace;
+
+    @Label("Script")
+    String script;
+
+    @Label("Execution")
+    @Description("direct, bash or pool")
+    String execution;
+
+    @Label("Process Id")
+    long pid;
+
+    @Label("Exit Code")
+    int exitCode;
+
+    public void commit(String scriptName, String scriptExecution, long processId, int processExitCode) {
+        end();
+        if (!shouldCommit())
+            return;
+        job = EventContext.job();
+        namespace = EventContext.namespace();
+        script = scriptName;
+        execution = scriptExecution;
+        pid = processId;
+        exitCode = processExitCode;
+        commit();
+    }
+}
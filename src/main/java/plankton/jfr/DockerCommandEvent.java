@@ -0,0 +1,37 @@
+package plankton.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("plankton.DockerCommand")
+@Label("Docker Command")
+@Description("Docker command, from process spawn or API request to completion")
+@Category("Plankton")
+public class DockerCommandEvent extends Event {
+
+    @Label("Job")
+    String job;
+
+    @Label("Namespace")
+    String namespace;
+
+    @Label("Command")
+    String command;
+
+    @Label("Failed")
+    boolean failed;
+
+    public void commit(Object dockerCommand, boolean commandFailed) {
+        end();
+        if (!shouldCommit())
+            return;
+        job = EventContext.job();
+        namespace = EventContext.namespace();
+        command = String.valueOf(dockerCommand);
+        failed = commandFailed;
+        commit();
+    }
+}
@@ -0,0 +1,37 @@
+package plankton.jfr;
+
+/**
+ * Job and namespace attached to the events recorded by the current thread.
+ */
+public class EventContext {
+
+    private static final ThreadLocal<String> job = new ThreadLocal<>();
+    private static volatile String namespace = "";
+
+    private EventContext() {
+        super();
+    }
+
+    public static void setNamespace(String namespace) {
+        EventContext.namespace = namespace;
+    }
+
+    static String namespace() {
+        return namespace;
+    }
+
+    static String job() {
+        String name = job.get();
+        return name == null ? "" : name;
+    }
+
+    public static void runAs(String jobName, Runnable runnable) {
+        String previous = job.get();
+        job.set(jobName);
+        try {
+            runnable.run();
+        } finally {
+            job.set(previous);
+        }
+    }
+}
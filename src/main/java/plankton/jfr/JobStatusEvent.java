@@ -0,0 +1,39 @@
+package plankton.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("plankton.JobStatus")
+@Label("Job Status")
+@Description("Time spent by a job in a status")
+@Category("Plankton")
+@StackTrace(false)
+public class JobStatusEvent extends Event {
+
+    @Label("Job")
+    String job;
+
+    @Label("Namespace")
+    String namespace;
+
+    @Label("Status")
+    String status;
+
+    @Label("Next Status")
+    String nextStatus;
+
+    public void commit(String jobName, Object leftStatus, Object enteredStatus) {
+        end();
+        if (!shouldCommit())
+            return;
+        job = jobName;
+        namespace = EventContext.namespace();
+        status = String.valueOf(leftStatus);
+        nextStatus = String.valueOf(enteredStatus);
+        commit();
+    }
+}
@@ -0,0 +1,65 @@
+package plankton.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Flight recording of a whole pipeline run, with the JDK profile settings and the Plankton events.
+ */
+public class PipelineRecording {
+
+    private static PipelineRecording current;
+
+    private final Recording recording;
+    private final Path destination;
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineRecording.class);
+
+    private PipelineRecording(Recording recording, Path destination) {
+        this.recording = recording;
+        this.destination = destination;
+    }
+
+    public static synchronized void start(Path destination) {
+        if (current != null)
+            return;
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName("plankton");
+            recording.enable(JobStatusEvent.class);
+            recording.enable(DockerCommandEvent.class);
+            recording.enable(BashScriptEvent.class);
+            recording.enable(SchedulerPassEvent.class);
+            recording.setToDisk(true);
+            recording.start();
+            current = new PipelineRecording(recording, destination);
+            logger.info("Flight recording started, it will be written to {}", destination);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            logger.warn("Unable to start flight recording", e);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (current == null)
+            return;
+        try {
+            Files.createDirectories(current.destination.getParent());
+            current.recording.stop();
+            current.recording.dump(current.destination);
+            logger.info("Flight recording written to {}", current.destination);
+        } catch (IOException | IllegalStateException e) {
+            logger.warn("Unable to write flight recording to {}", current.destination, e);
+        } finally {
+            current.recording.close();
+            current = null;
+        }
+    }
+}
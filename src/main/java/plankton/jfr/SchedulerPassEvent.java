@@ -0,0 +1,44 @@
+package plankton.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("plankton.SchedulerPass")
+@Label("Scheduler Pass")
+@Description("Pass over the scheduled jobs that starts the ones that fit")
+@Category("Plankton")
+@StackTrace(false)
+public class SchedulerPassEvent extends Event {
+
+    @Label("Job")
+    @Description("Job whose progress triggered the pass")
+    String job;
+
+    @Label("Namespace")
+    String namespace;
+
+    @Label("Jobs Started")
+    int jobsStarted;
+
+    @Label("Jobs Scheduled")
+    int jobsScheduled;
+
+    @Label("Jobs Running")
+    int jobsRunning;
+
+    public void commit(String triggeringJob, int started, int scheduled, int running) {
+        end();
+        if (!shouldCommit())
+            return;
+        job = triggeringJob == null ? "" : triggeringJob;
+        namespace = EventContext.namespace();
+        jobsStarted = started;
+        jobsScheduled = scheduled;
+        jobsRunning = running;
+        commit();
+    }
+}
@@ -0,0 +1,20 @@
+package plankton.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+        super();
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public long value() {
+        return value.sum();
+    }
+}
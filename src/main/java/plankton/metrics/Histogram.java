@@ -0,0 +1,45 @@
+package plankton.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram {
+
+    private final double[] upperBounds;
+    // One more than the bounds, for observations above the largest bound
+    private final LongAdder[] buckets;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(double[] upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        Arrays.sort(this.upperBounds);
+        buckets = new LongAdder[this.upperBounds.length + 1];
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    public void observe(double value) {
+        int index = Arrays.binarySearch(upperBounds, value);
+        buckets[index >= 0 ? index : -index - 1].increment();
+        sum.add(value);
+    }
+
+    double[] upperBounds() {
+        return upperBounds;
+    }
+
+    long[] cumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            counts[i] = total;
+        }
+        return counts;
+    }
+
+    double sum() {
+        return sum.sum();
+    }
+}
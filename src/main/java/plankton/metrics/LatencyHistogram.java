@@ -0,0 +1,79 @@
+package plankton.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of non-negative values in the manner of HdrHistogram: values below {@link #LINEAR_BUCKETS}
+ * are counted exactly, larger ones in {@link #SUB_BUCKETS} buckets per power of two, which bounds the relative error
+ * of a percentile to about 1.6%. Recording is lock-free.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 128;
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - 7 + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(value, (1L << (MAX_EXPONENT + 1)) - 1));
+        counts.incrementAndGet(indexOf(clamped));
+        count.increment();
+        sum.add(clamped);
+        max.accumulateAndGet(clamped, Math::max);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (exponent - 7) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // Middle of the range of values counted in the bucket
+    static long valueOf(int index) {
+        if (index < LINEAR_BUCKETS)
+            return index;
+        int exponent = 7 + (index - LINEAR_BUCKETS) / SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowest = (long) ((index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) / 2;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public long percentile(double percentile) {
+        long n = count.sum();
+        if (n == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        if (rank >= n)
+            return max();
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(valueOf(i), max());
+        }
+        return max();
+    }
+}
@@ -0,0 +1,121 @@
+package plankton.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Counters, gauges and histograms rendered in the Prometheus text exposition format. Registration is synchronized,
+ * recording is not: counters and histogram buckets are striped adders and gauges are read when scraped.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    private static class Family {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final List<Sample> samples = new ArrayList<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static class Sample {
+        private final String labels;
+        private final Object metric;
+
+        Sample(String labels, Object metric) {
+            this.labels = labels;
+            this.metric = metric;
+        }
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        Counter counter = new Counter();
+        register(name, help, "counter", labels, counter);
+        return counter;
+    }
+
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, help, "gauge", labels, value);
+    }
+
+    public Histogram histogram(String name, String help, double[] upperBounds, String... labels) {
+        Histogram histogram = new Histogram(upperBounds);
+        register(name, help, "histogram", labels, histogram);
+        return histogram;
+    }
+
+    private synchronized void register(String name, String help, String type, String[] labels, Object metric) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (!family.type.equals(type))
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        family.samples.add(new Sample(labelsOf(labels), metric));
+    }
+
+    private static String labelsOf(String[] labels) {
+        if (labels.length % 2 != 0)
+            throw new IllegalArgumentException("Labels must be name and value pairs");
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            builder.append(builder.length() == 0 ? "" : ",").append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return builder.toString();
+    }
+
+    public synchronized String scrape() {
+        StringBuilder builder = new StringBuilder();
+        for (Family family : families.values()) {
+            builder.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            builder.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Sample sample : family.samples) {
+                if (sample.metric instanceof Counter) {
+                    appendSample(builder, family.name, sample.labels, ((Counter) sample.metric).value());
+                } else if (sample.metric instanceof DoubleSupplier) {
+                    appendSample(builder, family.name, sample.labels, ((DoubleSupplier) sample.metric).getAsDouble());
+                } else {
+                    appendHistogram(builder, family.name, sample.labels, (Histogram) sample.metric);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void appendHistogram(StringBuilder builder, String name, String labels, Histogram histogram) {
+        double[] upperBounds = histogram.upperBounds();
+        long[] counts = histogram.cumulativeCounts();
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        for (int i = 0; i < counts.length; i++) {
+            String bound = i < upperBounds.length ? format(upperBounds[i]) : "+Inf";
+            appendSample(builder, name + "_bucket", separator + "le=\"" + bound + "\"", counts[i]);
+        }
+        appendSample(builder, name + "_sum", labels, histogram.sum());
+        appendSample(builder, name + "_count", labels, counts[counts.length - 1]);
+    }
+
+    private static void appendSample(StringBuilder builder, String name, String labels, double value) {
+        builder.append(name);
+        if (!labels.isEmpty())
+            builder.append('{').append(labels).append('}');
+        builder.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value))
+            return "NaN";
+        if (Double.isInfinite(value))
+            return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return String.valueOf((long) value);
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,137 @@
+package plankton.pipeline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+class ArchivedLogReader extends LogReader {
+
+    private final FileChannel data;
+    private final long[] uncompressedOffsets;
+    private final long[] firstLines;
+    private final long[] compressedOffsets;
+    private final int[] compressedLengths;
+    private final int[] uncompressedLengths;
+    private final int chunks;
+
+    private final Inflater inflater = new Inflater(true);
+    private final ByteBuffer compressed = ByteBuffer.allocate(JobLogArchive.MAX_COMPRESSED_CHUNK_SIZE);
+    private final byte[] chunk = new byte[JobLogArchive.CHUNK_SIZE];
+    private int loadedChunk = -1;
+
+    ArchivedLogReader(Path dataPath, Path indexPath) throws IOException {
+        ByteBuffer index;
+        try (FileChannel indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            // A record being appended concurrently is ignored until it is complete
+            long size = indexChannel.size() / JobLogArchive.INDEX_RECORD_SIZE * JobLogArchive.INDEX_RECORD_SIZE;
+            index = ByteBuffer.allocate((int) size);
+            while (index.hasRemaining() && indexChannel.read(index) > 0)
+                ;
+            index.flip();
+        }
+        chunks = index.remaining() / JobLogArchive.INDEX_RECORD_SIZE;
+        uncompressedOffsets = new long[chunks];
+        firstLines = new long[chunks];
+        compressedOffsets = new long[chunks];
+        compressedLengths = new int[chunks];
+        uncompressedLengths = new int[chunks];
+        for (int i = 0; i < chunks; i++) {
+            uncompressedOffsets[i] = index.getLong();
+            firstLines[i] = index.getLong();
+            compressedOffsets[i] = index.getLong();
+            compressedLengths[i] = index.getInt();
+            uncompressedLengths[i] = index.getInt();
+        }
+        data = FileChannel.open(dataPath, StandardOpenOption.READ);
+    }
+
+    @Override
+    public long size() {
+        return chunks == 0 ? 0 : uncompressedOffsets[chunks - 1] + uncompressedLengths[chunks - 1];
+    }
+
+    @Override
+    public long offsetOfLine(long line) throws IOException {
+        if (chunks == 0 || line <= 0)
+            return 0;
+        // The newline ending the previous line lies in the last chunk that starts before it
+        for (int i = Math.max(search(firstLines, line - 1), 0); i < chunks; i++) {
+            long lines = firstLines[i];
+            load(i);
+            for (int j = 0; j < uncompressedLengths[i]; j++) {
+                if (chunk[j] == '\n' && ++lines == line)
+                    return uncompressedOffsets[i] + j + 1;
+            }
+        }
+        return size();
+    }
+
+    @Override
+    public void transferTo(long start, long end, WritableByteChannel target) throws IOException {
+        end = Math.min(end, size());
+        int first = Math.max(search(uncompressedOffsets, start), 0);
+        for (int i = first; i < chunks && uncompressedOffsets[i] < end; i++) {
+            load(i);
+            int from = (int) Math.max(0, start - uncompressedOffsets[i]);
+            int to = (int) Math.min(uncompressedLengths[i], end - uncompressedOffsets[i]);
+            ByteBuffer slice = ByteBuffer.wrap(chunk, from, to - from);
+            while (slice.hasRemaining())
+                target.write(slice);
+        }
+    }
+
+    // Index of the last chunk whose key is less than or equal to the value
+    private int search(long[] keys, long value) {
+        int low = 0;
+        int high = chunks - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+        return high;
+    }
+
+    private void load(int index) throws IOException {
+        if (loadedChunk == index)
+            return;
+        loadedChunk = -1;
+        compressed.clear().limit(compressedLengths[index]);
+        long position = compressedOffsets[index];
+        while (compressed.hasRemaining()) {
+            int read = data.read(compressed, position + compressed.position());
+            if (read < 0)
+                throw new IOException("Log archive is truncated at chunk " + index);
+        }
+        inflater.reset();
+        inflater.setInput(compressed.array(), JobLogArchive.GZIP_HEADER_SIZE,
+                compressedLengths[index] - JobLogArchive.GZIP_HEADER_SIZE - JobLogArchive.GZIP_TRAILER_SIZE);
+        try {
+            int length = 0;
+            while (length < uncompressedLengths[index] && !inflater.finished()) {
+                int inflated = inflater.inflate(chunk, length, uncompressedLengths[index] - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                length += inflated;
+            }
+            if (length != uncompressedLengths[index])
+                throw new IOException("Log archive chunk " + index + " is corrupt");
+        } catch (DataFormatException e) {
+            throw new IOException("Log archive chunk " + index + " is corrupt", e);
+        }
+        loadedChunk = index;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        data.close();
+    }
+}
@@ -0,0 +1,40 @@
+package plankton.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class ConsoleLogSink implements LogSink {
+
+    private static final String ERROR = Colors.RED + "ERROR" + Colors.ANSI_RESET + " ";
+
+    private final StringBuilder batch = new StringBuilder();
+    private boolean batchIsError = false;
+
+    private static final Logger logger = LoggerFactory.getLogger(Job.class);
+
+    @Override
+    public void write(LogLine line) {
+        if (batch.length() > 0 && batchIsError != line.isError())
+            flush();
+        if (line.isError() ? !logger.isErrorEnabled() : !logger.isInfoEnabled())
+            return;
+        batchIsError = line.isError();
+        if (batch.length() > 0)
+            batch.append('\n');
+        batch.append(line.job().logPrefix());
+        if (line.isError())
+            batch.append(ERROR);
+        batch.append(line.text());
+    }
+
+    @Override
+    public void flush() {
+        if (batch.length() == 0)
+            return;
+        if (batchIsError)
+            logger.error(batch.toString());
+        else
+            logger.info(batch.toString());
+        batch.setLength(0);
+    }
+}
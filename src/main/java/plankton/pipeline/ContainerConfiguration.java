@@ -15,4 +15,10 @@ public class ContainerConfiguration {
 
     private Consumer<String> forEachOutput;
     private Consumer<String> forEachError;
+
+    private Runnable onStarted;
+    private Runnable onHealthy;
+
+    @Builder.Default
+    private boolean followLogs = true;
 }
@@ -1,5 +1,9 @@
 package plankton.pipeline;
 
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
 public interface ContainerRuntimeAdapter {
 
     void pullImage(ContainerConfiguration configuration);
@@ -10,7 +14,17 @@ public interface ContainerRuntimeAdapter {
 
     int startContainerAndGetExitCode(ContainerConfiguration configuration);
 
+    void fetchLogs(ContainerConfiguration configuration);
+
     void stopContainer(ContainerConfiguration configuration);
 
+    void killContainer(ContainerConfiguration configuration);
+
+    String imageDigest(ContainerConfiguration configuration);
+
+    // Workspace-relative descriptions of the read-only volumes and env files of a job, with the paths to hash,
+    // or empty when one of them is not in the workspace
+    Optional<Map<String, Path>> readOnlyInputs(ContainerConfiguration configuration);
+
     // boolean isContainerHealthy(ContainerConfiguration configuration);
 }
@@ -0,0 +1,127 @@
+package plankton.pipeline;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Critical path through the executed jobs, following from the job that finished last the dependency whose condition
+ * made each job ready, along with the time jobs spent ready but waiting for a slot and the concurrency achieved.
+ * Times are in milliseconds since the pipeline started.
+ */
+@Getter
+public class CriticalPathReport {
+
+    private static final int TOP_SLOT_WAITS = 10;
+
+    private final long durationMillis;
+    private final int jobsRunningLimit;
+    private final double averageConcurrency;
+    private final double utilization;
+    private final long criticalPathMillis;
+    private final long criticalPathSlotWaitMillis;
+    private final List<Step> criticalPath = new ArrayList<>();
+    // Jobs that waited for a slot, longest wait first
+    private final Map<String, Long> slotWaitMillis = new LinkedHashMap<>();
+
+    @Getter
+    public static class Step {
+
+        private final String job;
+        // Condition of the dependency on the previous step
+        private final String condition;
+        private final long readyMillis;
+        private final long startMillis;
+        private final long endMillis;
+        private final long slotWaitMillis;
+
+        private Step(Job job, String condition, Instant pipelineStart, Instant now) {
+            this.job = job.name;
+            this.condition = condition;
+            this.readyMillis = millisBetween(pipelineStart, job.readyInstant);
+            this.startMillis = millisBetween(pipelineStart, job.initialInstant());
+            this.endMillis = millisBetween(pipelineStart, endOf(job, now));
+            this.slotWaitMillis = slotWaitOf(job, now);
+        }
+    }
+
+    CriticalPathReport(List<Job> jobs, Instant pipelineStart, Instant pipelineEnd, int jobsRunningLimit) {
+        Instant now = pipelineEnd != null ? pipelineEnd : Instant.now();
+        this.durationMillis = millisBetween(pipelineStart, now);
+        this.jobsRunningLimit = jobsRunningLimit;
+        long busyMillis = jobs.stream()
+                .filter(job -> job.initialInstant() != null)
+                .mapToLong(job -> millisBetween(job.initialInstant(), endOf(job, now)))
+                .sum();
+        this.averageConcurrency = durationMillis == 0 ? 0 : (double) busyMillis / durationMillis;
+        this.utilization = jobsRunningLimit == 0 ? 0 : averageConcurrency / jobsRunningLimit;
+
+        Job job = jobs.stream()
+                .filter(executedJob -> executedJob.initialInstant() != null)
+                .max(Comparator.comparing(executedJob -> endOf(executedJob, now)))
+                .orElse(null);
+        while (job != null) {
+            Job dependency = job.readyAfter;
+            if (dependency != null && dependency.initialInstant() == null)
+                dependency = null;
+            String condition = dependency == null ? null
+                    : job.dependencies().get(dependency).toString().toLowerCase();
+            criticalPath.add(new Step(job, condition, pipelineStart, now));
+            job = dependency;
+        }
+        Collections.reverse(criticalPath);
+        this.criticalPathMillis = criticalPath.isEmpty() ? 0
+                : criticalPath.get(criticalPath.size() - 1).endMillis - criticalPath.get(0).readyMillis;
+        this.criticalPathSlotWaitMillis = criticalPath.stream().mapToLong(Step::getSlotWaitMillis).sum();
+
+        jobs.stream()
+                .filter(waitingJob -> slotWaitOf(waitingJob, now) > 0)
+                .sorted(Comparator.comparingLong((Job waitingJob) -> slotWaitOf(waitingJob, now)).reversed()
+                        .thenComparing(Job::name))
+                .forEach(waitingJob -> slotWaitMillis.put(waitingJob.name, slotWaitOf(waitingJob, now)));
+    }
+
+    private static Instant endOf(Job job, Instant now) {
+        return job.finalInstant() != null ? job.finalInstant() : now;
+    }
+
+    // Jobs still in the queue have been waiting until now
+    private static long slotWaitOf(Job job, Instant now) {
+        if (job.readyInstant == null)
+            return 0;
+        if (job.initialInstant() == null)
+            return job.status().isFinal() ? 0 : millisBetween(job.readyInstant, now);
+        return millisBetween(job.readyInstant, job.initialInstant());
+    }
+
+    private static long millisBetween(Instant start, Instant end) {
+        if (start == null || end == null)
+            return 0;
+        return Math.max(0, Duration.between(start, end).toMillis());
+    }
+
+    public String report() {
+        StringBuilder builder = new StringBuilder(String.format(
+                "Critical path %.1f s of %.1f s, slot wait on it %.1f s, average concurrency %.2f of %d (%.0f%%)",
+                criticalPathMillis / 1000.0, durationMillis / 1000.0, criticalPathSlotWaitMillis / 1000.0,
+                averageConcurrency, jobsRunningLimit, utilization * 100));
+        builder.append(String.format("%n%-30s %-30s %9s %9s %9s %9s (s)",
+                "job", "after", "ready", "start", "end", "slot wait"));
+        criticalPath.forEach(step -> builder.append(String.format("%n%-30s %-30s %9.1f %9.1f %9.1f %9.1f",
+                step.job, step.condition == null ? "" : step.condition, step.readyMillis / 1000.0,
+                step.startMillis / 1000.0, step.endMillis / 1000.0, step.slotWaitMillis / 1000.0)));
+        if (!slotWaitMillis.isEmpty()) {
+            builder.append(String.format("%nWaiting for a slot:"));
+            slotWaitMillis.entrySet().stream().limit(TOP_SLOT_WAITS).forEach(entry -> builder.append(
+                    String.format("%n%-30s %9.1f", entry.getKey(), entry.getValue() / 1000.0)));
+        }
+        return builder.toString();
+    }
+}
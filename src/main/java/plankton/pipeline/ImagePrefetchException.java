@@ -0,0 +1,10 @@
+package plankton.pipeline;
+
+public class ImagePrefetchException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    ImagePrefetchException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,82 @@
+package plankton.pipeline;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import plankton.compose.ComposeService;
+import plankton.executor.PlanktonExecutor;
+import plankton.executor.PlanktonTask;
+
+class ImagePrefetcher {
+
+    private final Pipeline pipeline;
+    private final Map<String, PlanktonTask> pulls = new HashMap<>();
+    private final Set<String> pulledImages = ConcurrentHashMap.newKeySet();
+    private final Set<String> pendingImages = ConcurrentHashMap.newKeySet();
+
+    private static final Logger logger = LoggerFactory.getLogger(ImagePrefetcher.class);
+
+    ImagePrefetcher(Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    synchronized void prefetch(List<Job> jobs) {
+        jobs.stream()
+                .filter(job -> !job.status().isFinal())
+                .filter(job -> job.composeService.build().isEmpty() && job.composeService.image().isPresent())
+                .sorted(Comparator.comparing(Job::dependencyLevel)
+                        .thenComparing(Comparator.comparingLong((Job job) -> job.longestRemainingPath).reversed()))
+                .forEach(job -> pulls.computeIfAbsent(job.composeService.image().orElseThrow(),
+                        image -> prefetch(image, job.composeService)));
+    }
+
+    private PlanktonTask prefetch(String image, ComposeService service) {
+        logger.debug("Prefetching image: {}", image);
+        pendingImages.add(image);
+        return PlanktonExecutor.pullExecutor().execute("pull " + image, () -> {
+            try {
+                pipeline.containerRuntimeAdapter.pullImage(ContainerConfiguration.builder()
+                        .service(service)
+                        .forEachOutput(msg -> logger.debug("Prefetching image {} ... {}", image, msg))
+                        .forEachError(msg -> logger.debug("Prefetching image {} ... {}", image, msg))
+                        .build());
+                pulledImages.add(image);
+                logger.debug("Image prefetched: {}", image);
+            } finally {
+                pendingImages.remove(image);
+                pipeline.notifyImagePrefetched();
+            }
+        }, (thread, e) -> logger.debug("Unable to prefetch image {}", image, e));
+    }
+
+    // Jobs are not admitted while their image is prefetched, so that pulls do not hold run slots
+    boolean isPrefetching(Job job) {
+        ComposeService service = job.composeService;
+        return service.build().isEmpty() && service.image().isPresent()
+                && pendingImages.contains(service.image().get());
+    }
+
+    boolean awaitPrefetch(ComposeService service) {
+        String image = service.image().orElseThrow();
+        PlanktonTask pull;
+        synchronized (this) {
+            pull = pulls.get(image);
+        }
+        if (pull == null)
+            return false;
+        try {
+            pull.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImagePrefetchException("Interrupted while waiting for image " + image);
+        }
+        return pulledImages.contains(image);
+    }
+}
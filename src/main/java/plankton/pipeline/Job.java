@@ -1,10 +1,17 @@
 package plankton.pipeline;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +19,10 @@ import org.slf4j.LoggerFactory;
 import lombok.EqualsAndHashCode;
 import plankton.compose.ComposeService;
 import plankton.compose.DependsOnCondition;
+import plankton.executor.PlanktonExecutor;
+import plankton.executor.PlanktonTask;
+import plankton.jfr.EventContext;
+import plankton.jfr.JobStatusEvent;
 
 @EqualsAndHashCode(of = { "pipeline", "name" })
 public class Job {
@@ -32,24 +43,38 @@ public class Job {
     Integer dependencyLevel;
     boolean autoStopWhenDirectDependentsHaveFinalStatus = false;
 
-    private JobStatus status = JobStatus.CREATED;
+    final Set<DependsOnCondition> satisfiedConditions = EnumSet.noneOf(DependsOnCondition.class);
+    int unsatisfiedDependencies;
+    int dependentsWithoutFinalStatus;
+    long longestRemainingPath;
+
+    private volatile JobStatus status = JobStatus.CREATED;
+    private long statusNanos = System.nanoTime();
+    private JobStatusEvent statusEvent = new JobStatusEvent();
+    volatile int slot = -1;
+    Instant readyInstant = null;
+    // Dependency whose condition was satisfied last
+    Job readyAfter = null;
 
     private Instant initialInstant = null;
     private Instant finalInstant = null;
     private Duration duration = null;
 
     private Integer exitCode = null;
+    private volatile boolean containerCreated = false;
+
+    private PlanktonTask task = null;
+    private final Object statusLock = new Object();
 
-    private Thread thread = null;
+    Duration timeout;
 
     private static final Logger logger = LoggerFactory.getLogger(Job.class);
     private String colorizedName;
     private String logPrefix;
-    private String infoPlaceholder;
-    private String errorPlaceholder;
+    LogBus.Publisher log;
 
     Job() {
-        super();
+        statusEvent.begin();
     }
 
     public Integer exitCode() {
@@ -59,87 +84,215 @@ public class Job {
     void initializeColorizedNameAndLogPlaceholders() {
         colorizedName = LogUtils.colorized(name);
         logPrefix = LogUtils.prefixOf(name);
-        infoPlaceholder = logPrefix + "{}";
-        errorPlaceholder = logPrefix + Colors.RED + "ERROR" + Colors.ANSI_RESET + " {}";
     }
 
     void start() {
         logger.debug("Starting {}", this);
-        thread = new Thread(() -> {
+        task = PlanktonExecutor.jobExecutor().execute(name, () -> EventContext.runAs(name, closingLog(() -> {
             initialInstant = Instant.now();
             if (composeService.build().isPresent()) {
-                status = JobStatus.BUILDING;
+                if (!changeStatus(JobStatus.BUILDING))
+                    return;
                 pipeline.containerRuntimeAdapter
                         .buildImage(ContainerConfiguration.builder()
                                 .service(composeService)
-                                .forEachOutput(msg -> logger.info("{}{}", logPrefix, msg))
-                                .forEachError(msg -> logger.error("{}{}", logPrefix, msg))
+                                .forEachOutput(log::output)
+                                .forEachError(log::error)
                                 .build());
             } else {
-                status = JobStatus.PULLING;
-                pipeline.containerRuntimeAdapter
-                        .pullImage(ContainerConfiguration.builder()
-                                .service(composeService)
-                                .forEachOutput(msg -> logger.info("{}{}", logPrefix, msg))
-                                .forEachError(msg -> logger.error("{}{}", logPrefix, msg))
-                                .build());
+                if (!changeStatus(JobStatus.PULLING))
+                    return;
+                if (!pipeline.imagePrefetcher.awaitPrefetch(composeService))
+                    pipeline.containerRuntimeAdapter
+                            .pullImage(ContainerConfiguration.builder()
+                                    .service(composeService)
+                                    .forEachOutput(log::output)
+                                    .forEachError(log::error)
+                                    .build());
             }
             if (composeService.build().isPresent() && composeService.image().isPresent()
                     && composeService.entrypointIsReseted() && composeService.command().isEmpty()) {
-                status = JobStatus.BUILT;
-                finalInstant = Instant.now();
-                duration = Duration.between(initialInstant, finalInstant);
-                String image = composeService.image().orElseThrow();
-                String time = durationAsString();
-                logger.info("{}{}Image built: {}; Time: {}", logPrefix, SUCCEEDED, image, time);
-                pipeline.notifyJobCompletedSuccessfully(this);
-            } else {
-                status = JobStatus.RUNNING;
-                pipeline.containerRuntimeAdapter.createContainer(ContainerConfiguration.builder()
-                        .service(composeService)
-                        .forEachOutput(msg -> logger.debug("{}Creating container ... {}", logPrefix, msg))
-                        .forEachError(msg -> logger.error("{}Creating container ... {}", logPrefix, msg))
-                        .build());
-                logger.debug("Starting instance: {}", this);
-                exitCode = pipeline.containerRuntimeAdapter
-                        .startContainerAndGetExitCode(ContainerConfiguration.builder()
-                                .service(composeService)
-                                .forEachOutput(msg -> logger.info(infoPlaceholder, msg))
-                                .forEachError(msg -> logger.error(errorPlaceholder, msg))
-                                .build());
-                finalInstant = Instant.now();
-                duration = Duration.between(initialInstant, finalInstant);
-                String time = durationAsString();
-                if (exitCode == 0) {
-                    status = JobStatus.EXITED_ZERO;
-                    logger.info("{}{}Exit code: 0; Time: {}", logPrefix, SUCCEEDED, time);
+                log.flush();
+                if (finish(JobStatus.BUILT)) {
+                    String image = composeService.image().orElseThrow();
+                    String time = durationAsString();
+                    logger.info("{}{}Image built: {}; Time: {}", logPrefix, SUCCEEDED, image, time);
                     pipeline.notifyJobCompletedSuccessfully(this);
-                } else {
-                    status = JobStatus.EXITED_NON_ZERO;
-                    logger.error("{}{}Exited non-zero code: {}; Time: {}", logPrefix, FAILED, exitCode, time);
-                    pipeline.notifyJobFailed(this);
+                }
+            } else {
+                Optional<String> cacheKey = cacheKey();
+                if (cacheKey.isPresent() && replayFromCache(cacheKey.get()))
+                    return;
+                JobCache.Recording recording = cacheKey.map(key -> pipeline.jobCache.record(key)).orElse(null);
+                try {
+                    if (!changeStatus(JobStatus.RUNNING))
+                        return;
+                    long createNanos = System.nanoTime();
+                    pipeline.containerRuntimeAdapter.createContainer(ContainerConfiguration.builder()
+                            .service(composeService)
+                            .forEachOutput(msg -> logger.debug("{}Creating container ... {}", logPrefix, msg))
+                            .forEachError(msg -> logger.error("{}Creating container ... {}", logPrefix, msg))
+                            .build());
+                    containerCreated = true;
+                    trace("create", createNanos);
+                    boolean quiet = composeService.quiet().orElse(pipeline.quiet);
+                    logger.debug("Starting instance: {}", this);
+                    long runNanos = System.nanoTime();
+                    exitCode = pipeline.containerRuntimeAdapter
+                            .startContainerAndGetExitCode(ContainerConfiguration.builder()
+                                    .service(composeService)
+                                    .forEachOutput(msg -> {
+                                        log.output(msg);
+                                        if (recording != null)
+                                            recording.output(msg);
+                                    })
+                                    .forEachError(msg -> {
+                                        log.error(msg);
+                                        if (recording != null)
+                                            recording.error(msg);
+                                    })
+                                    .onStarted(() -> pipeline.notifyJobStarted(this))
+                                    .onHealthy(() -> pipeline.notifyJobHealthy(this))
+                                    .followLogs(!quiet)
+                                    .build());
+                    trace("run", runNanos);
+                    if (quiet && exitCode != 0)
+                        fetchLogs(log::output, log::error);
+                    else if (quiet && recording != null)
+                        fetchLogs(recording::output, recording::error);
+                    log.flush();
+                    if (exitCode == 0) {
+                        if (recording != null)
+                            recording.save(exitCode);
+                        if (finish(JobStatus.EXITED_ZERO)) {
+                            logger.info("{}{}Exit code: 0; Time: {}", logPrefix, SUCCEEDED, durationAsString());
+                            pipeline.notifyJobCompletedSuccessfully(this);
+                        }
+                    } else {
+                        if (finish(JobStatus.EXITED_NON_ZERO)) {
+                            logger.error("{}{}Exited non-zero code: {}; Time: {}", logPrefix, FAILED, exitCode,
+                                    durationAsString());
+                            pipeline.notifyJobFailed(this);
+                        }
+                    }
+                } finally {
+                    if (recording != null)
+                        recording.discard();
                 }
             }
+        })), (t, e) -> {
+            if (finish(JobStatus.ERROR)) {
+                logger.error("{}{}An exception was thrown", logPrefix, FAILED, e);
+                stop();
+                pipeline.notifyJobFailed(this);
+            } else {
+                logger.debug("{}Exception thrown after final status {}", logPrefix, status, e);
+            }
         });
-        thread.setUncaughtExceptionHandler(
-                (t, e) -> {
-                    status = JobStatus.ERROR;
-                    if (initialInstant != null) {
-                        finalInstant = Instant.now();
-                        duration = Duration.between(initialInstant, finalInstant);
-                    }
-                    logger.error("{}{}An exception was thrown", logPrefix, FAILED, e);
-                    stop();
-                    pipeline.notifyJobFailed(this);
-                });
-        thread.start();
+    }
+
+    // Once the task ends, neither it nor the stream threads it joins publish any more lines of the job
+    private Runnable closingLog(Runnable runnable) {
+        return () -> {
+            try {
+                runnable.run();
+            } finally {
+                log.close();
+            }
+        };
+    }
+
+    private void fetchLogs(Consumer<String> forEachOutput, Consumer<String> forEachError) {
+        pipeline.containerRuntimeAdapter.fetchLogs(ContainerConfiguration.builder()
+                .service(composeService)
+                .forEachOutput(forEachOutput)
+                .forEachError(forEachError)
+                .build());
+    }
+
+    public List<String> logs() {
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        if (containerCreated)
+            fetchLogs(lines::add, lines::add);
+        return lines;
+    }
+
+    public Optional<LogReader> openLog() throws IOException {
+        if (pipeline.jobLogFiles == null)
+            return Optional.empty();
+        return pipeline.jobLogFiles.reader(this);
+    }
+
+    private Optional<String> cacheKey() {
+        if (pipeline.jobCache == null)
+            return Optional.empty();
+        return pipeline.jobCache.keyOf(this, pipeline.containerRuntimeAdapter, ContainerConfiguration.builder()
+                .service(composeService)
+                .forEachOutput(msg -> logger.debug("{}Inspecting image ... {}", logPrefix, msg))
+                .forEachError(msg -> logger.debug("{}Inspecting image ... {}", logPrefix, msg))
+                .build());
+    }
+
+    private boolean replayFromCache(String cacheKey) {
+        logger.debug("{}Looking up cached result {}", logPrefix, cacheKey);
+        long replayNanos = System.nanoTime();
+        Optional<Integer> cachedExitCode = pipeline.jobCache.replay(cacheKey,
+                log::output,
+                log::error);
+        if (cachedExitCode.isEmpty())
+            return false;
+        trace("cache", replayNanos);
+        log.flush();
+        exitCode = cachedExitCode.get();
+        if (finish(JobStatus.CACHED)) {
+            logger.info("{}{}Exit code: {} (cached); Time: {}", logPrefix, SUCCEEDED, exitCode, durationAsString());
+            pipeline.notifyJobCompletedSuccessfully(this);
+        }
+        return true;
+    }
+
+    private boolean changeStatus(JobStatus newStatus) {
+        synchronized (statusLock) {
+            if (status.isFinal())
+                return false;
+            setStatus(newStatus);
+            pipeline.jobJournal.record(this);
+            return true;
+        }
+    }
+
+    private boolean finish(JobStatus finalStatus) {
+        synchronized (statusLock) {
+            if (status.isFinal())
+                return false;
+            setStatus(finalStatus);
+            if (initialInstant != null) {
+                finalInstant = Instant.now();
+                duration = Duration.between(initialInstant, finalInstant);
+            }
+            pipeline.jobJournal.record(this);
+            return true;
+        }
+    }
+
+    private void setStatus(JobStatus newStatus) {
+        long now = System.nanoTime();
+        pipeline.metrics.statusChanged(status, newStatus, now - statusNanos);
+        if (status.isPulling() || status.isBuilding())
+            trace(status.isPulling() ? "pull" : "build", statusNanos);
+        statusEvent.commit(name, status, newStatus);
+        statusEvent = new JobStatusEvent();
+        statusEvent.begin();
+        status = newStatus;
+        statusNanos = now;
     }
 
     void stop() {
         logger.debug("Stopping job {}", this);
-        if (thread != null) {
+        if (task != null) {
             synchronized (this) {
                 logger.debug("Stopping instance: {}", this);
+                long stopNanos = System.nanoTime();
                 // TODO check if container is running
                 pipeline.containerRuntimeAdapter
                         .stopContainer(ContainerConfiguration.builder()
@@ -147,21 +300,67 @@ public class Job {
                                 .forEachOutput(msg -> logger.info("{}Stopping container ... {}", logPrefix, msg))
                                 .forEachError(msg -> logger.error("{}Stopping container ... {}", logPrefix, msg))
                                 .build());
+                trace("stop", stopNanos);
             }
-            thread.interrupt();
+            task.interrupt();
         }
     }
 
-    void block() {
-        status = JobStatus.BLOCKED;
-        logger.error("{}{}Blocked by dependencies", logPrefix, FAILED);
+    // The output of the job is published by its task, and by the stream threads the task joins
+    boolean awaitTask(long timeoutMillis) throws InterruptedException {
+        return task == null || task.join(timeoutMillis);
+    }
+
+    private void trace(String span, long beginNanos) {
+        if (pipeline.trace != null)
+            pipeline.trace.span(this, span, beginNanos, System.nanoTime());
+    }
+
+    void timeOut() {
+        if (!finish(JobStatus.TIMED_OUT))
+            return;
+        logger.error("{}{}Timed out; Time: {}", logPrefix, FAILED, durationAsString());
+        pipeline.notifyJobFailed(this);
+        PlanktonExecutor.controlExecutor().execute(name + " kill", () -> {
+            pipeline.containerRuntimeAdapter
+                    .killContainer(ContainerConfiguration.builder()
+                            .service(composeService)
+                            .forEachOutput(msg -> logger.debug("{}Killing container ... {}", logPrefix, msg))
+                            .forEachError(msg -> logger.debug("{}Killing container ... {}", logPrefix, msg))
+                            .build());
+            task.interrupt();
+        });
+    }
+
+    void cancel(String reason) {
+        if (!finish(JobStatus.CANCELED))
+            return;
+        logger.error("{}{}{}; Time: {}", logPrefix, FAILED, reason, durationAsString());
         pipeline.notifyJobFailed(this);
+        PlanktonExecutor.controlExecutor().execute(name + " stop", this::stop);
+    }
+
+    void restore(JobStatus restoredStatus, Integer restoredExitCode) {
+        exitCode = restoredExitCode;
+        if (finish(restoredStatus))
+            logger.info("{}{}Restored from journal: {}", logPrefix, SUCCEEDED, restoredStatus);
+    }
+
+    boolean markBlocked(String reason) {
+        if (!finish(JobStatus.BLOCKED))
+            return false;
+        logger.error("{}{}{}", logPrefix, FAILED, reason);
+        return true;
     }
 
     private String durationAsString() {
         return duration().getSeconds() + "sec";
     }
 
+    String logPrefix() {
+        return logPrefix;
+    }
+
     public Duration duration() {
         synchronized (this) {
             if (duration != null)
@@ -0,0 +1,319 @@
+package plankton.pipeline;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import plankton.compose.ComposeService;
+
+class JobCache {
+
+    private static final String RESULT_FILE_NAME = "result.properties";
+    private static final String OUTPUT_FILE_NAME = "output.log";
+    private static final String OUTPUT_PREFIX = "O ";
+    private static final String ERROR_PREFIX = "E ";
+
+    private final Path directory;
+    private final long maxSize;
+
+    private final Map<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    private static final Logger logger = LoggerFactory.getLogger(JobCache.class);
+
+    JobCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        loadEntries();
+    }
+
+    private void loadEntries() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> entries = Files.list(directory)) {
+                entries.filter(entry -> {
+                            if (!entry.getFileName().toString().endsWith(".tmp"))
+                                return true;
+                            deleteRecursively(entry);
+                            return false;
+                        })
+                        .filter(Files::isDirectory)
+                        .sorted(Comparator.comparing(JobCache::lastModifiedTime))
+                        .forEach(entry -> {
+                            long entrySize = sizeOf(entry);
+                            entrySizes.put(entry.getFileName().toString(), entrySize);
+                            size += entrySize;
+                        });
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Unable to load job cache entries from {}", directory, e);
+        }
+        logger.debug("Job cache: {} entries, {} bytes", entrySizes.size(), size);
+    }
+
+    boolean isCacheable(Job job) {
+        ComposeService service = job.composeService;
+        return service.build().isEmpty()
+                && service.image().isPresent()
+                && !job.autoStopWhenDirectDependentsHaveFinalStatus
+                && service.volumes().stream().allMatch(v -> v.endsWith(":ro"));
+    }
+
+    Optional<String> keyOf(Job job, ContainerRuntimeAdapter adapter, ContainerConfiguration configuration) {
+        if (!isCacheable(job))
+            return Optional.empty();
+        // Named volumes and files outside the workspace may change without changing the key
+        Optional<Map<String, Path>> inputs = adapter.readOnlyInputs(configuration);
+        if (inputs.isEmpty()) {
+            logger.debug("Job {} is not cacheable: it reads volumes or env files outside the workspace", job);
+            return Optional.empty();
+        }
+        ComposeService service = job.composeService;
+        MessageDigest digest = sha256();
+        update(digest, "image", service.image().orElseThrow() + "@" + adapter.imageDigest(configuration));
+        update(digest, "command", service.command());
+        update(digest, "entrypoint", service.entrypointIsReseted() ? "" : service.entrypoint());
+        update(digest, "environment", service.environment());
+        update(digest, "expose", service.expose());
+        update(digest, "group_add", service.groupAdd());
+        update(digest, "healthcheck", service.healthcheck());
+        update(digest, "user", service.user());
+        update(digest, "working_dir", service.workingDir());
+        update(digest, "cpus", service.cpus());
+        update(digest, "mem_limit", service.memLimit());
+        inputs.get().forEach((input, path) -> {
+            update(digest, "input", input);
+            updateWithContent(digest, path);
+        });
+        return Optional.of(hex(digest.digest()));
+    }
+
+    synchronized Optional<Integer> replay(String key, Consumer<String> forEachOutput,
+            Consumer<String> forEachError) {
+        if (!entrySizes.containsKey(key))
+            return Optional.empty();
+        Path entry = directory.resolve(key);
+        Properties result = new Properties();
+        try (Reader reader = Files.newBufferedReader(entry.resolve(RESULT_FILE_NAME));
+                Stream<String> lines = Files.lines(entry.resolve(OUTPUT_FILE_NAME), StandardCharsets.UTF_8)) {
+            result.load(reader);
+            int exitCode = Integer.parseInt(result.getProperty("exitCode"));
+            lines.forEach(line -> {
+                if (line.startsWith(ERROR_PREFIX))
+                    forEachError.accept(line.substring(ERROR_PREFIX.length()));
+                else
+                    forEachOutput.accept(line.substring(OUTPUT_PREFIX.length()));
+            });
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(exitCode);
+        } catch (IOException | UncheckedIOException | NumberFormatException e) {
+            logger.warn("Unable to replay job cache entry {}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    // Null when the output cannot be recorded
+    Recording record(String key) {
+        try {
+            return new Recording(key, Files.createTempFile(directory, key + ".", ".tmp"));
+        } catch (IOException e) {
+            logger.warn("Unable to record job cache entry {}", key, e);
+            return null;
+        }
+    }
+
+    // The output is written to a temporary file of the cache directory, which is moved into the entry on save, or
+    // deleted when the job is not cached
+    class Recording {
+
+        private final String key;
+        private final Path outputPath;
+        private BufferedWriter writer;
+
+        private Recording(String key, Path outputPath) throws IOException {
+            this.key = key;
+            this.outputPath = outputPath;
+            writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8);
+        }
+
+        void output(String line) {
+            write(OUTPUT_PREFIX, line);
+        }
+
+        void error(String line) {
+            write(ERROR_PREFIX, line);
+        }
+
+        private synchronized void write(String prefix, String line) {
+            if (writer == null)
+                return;
+            try {
+                writer.write(prefix);
+                writer.write(line);
+                writer.newLine();
+            } catch (IOException e) {
+                logger.warn("Unable to record job cache entry {}", key, e);
+                discard();
+            }
+        }
+
+        synchronized void save(int exitCode) {
+            if (writer == null)
+                return;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.warn("Unable to record job cache entry {}", key, e);
+                discard();
+                return;
+            }
+            writer = null;
+            store(key, exitCode, outputPath);
+            deleteOutput();
+        }
+
+        // Does nothing once saved
+        synchronized void discard() {
+            if (writer == null)
+                return;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close job cache recording {}", outputPath, e);
+            }
+            writer = null;
+            deleteOutput();
+        }
+
+        private void deleteOutput() {
+            try {
+                Files.deleteIfExists(outputPath);
+            } catch (IOException e) {
+                logger.warn("Unable to delete {}", outputPath, e);
+            }
+        }
+    }
+
+    private synchronized void store(String key, int exitCode, Path outputPath) {
+        if (entrySizes.containsKey(key))
+            return;
+        Path entry = directory.resolve(key);
+        Path temporaryEntry = directory.resolve(key + ".tmp");
+        try {
+            Files.createDirectories(temporaryEntry);
+            Properties result = new Properties();
+            result.setProperty("exitCode", String.valueOf(exitCode));
+            try (Writer writer = Files.newBufferedWriter(temporaryEntry.resolve(RESULT_FILE_NAME))) {
+                result.store(writer, null);
+            }
+            Files.move(outputPath, temporaryEntry.resolve(OUTPUT_FILE_NAME), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(temporaryEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to store job cache entry {}", key, e);
+            deleteRecursively(temporaryEntry);
+            return;
+        }
+        long entrySize = sizeOf(entry);
+        entrySizes.put(key, entrySize);
+        size += entrySize;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.getValue();
+            deleteRecursively(directory.resolve(eldest.getKey()));
+            logger.debug("Evicted job cache entry {}", eldest.getKey());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String key, Object value) {
+        digest.update((key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void updateWithContent(MessageDigest digest, Path path) {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(path)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            update(digest, "missing", true);
+            return;
+        }
+        byte[] buffer = new byte[64 * 1024];
+        for (Path file : files) {
+            update(digest, "file", path.relativize(file));
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                int n;
+                while ((n = inputStream.read(buffer)) > 0)
+                    digest.update(buffer, 0, n);
+            } catch (IOException e) {
+                update(digest, "unreadable", path.relativize(file));
+            }
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes)
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path path) {
+        try (Stream<Path> walk = Files.walk(path)) {
+            return walk.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        } catch (IOException | UncheckedIOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(Path path) {
+        try (Stream<Path> walk = Files.walk(path)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Unable to delete {}", path, e);
+        }
+    }
+}
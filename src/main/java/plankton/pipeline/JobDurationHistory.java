@@ -0,0 +1,82 @@
+package plankton.pipeline;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class JobDurationHistory {
+
+    private static final String FILE_NAME = "job-durations.properties";
+
+    private final Path filePath;
+    private final Map<String, Long> millisByJobName = new HashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(JobDurationHistory.class);
+
+    JobDurationHistory(Path directory) {
+        filePath = directory == null ? null : directory.resolve(FILE_NAME);
+        load();
+    }
+
+    private void load() {
+        if (filePath == null || !Files.isRegularFile(filePath))
+            return;
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(filePath)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            logger.warn("Unable to load job durations from {}", filePath, e);
+            return;
+        }
+        properties.stringPropertyNames().forEach(jobName -> {
+            try {
+                millisByJobName.put(jobName, Long.parseLong(properties.getProperty(jobName)));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid duration for job {} in {}", jobName, filePath);
+            }
+        });
+        logger.debug("Loaded {} job durations from {}", millisByJobName.size(), filePath);
+    }
+
+    synchronized void record(Job job) {
+        millisByJobName.put(job.name, job.duration().toMillis());
+    }
+
+    synchronized void save() {
+        if (filePath == null)
+            return;
+        Properties properties = new Properties();
+        millisByJobName.forEach((jobName, millis) -> properties.setProperty(jobName, String.valueOf(millis)));
+        try {
+            Files.createDirectories(filePath.getParent());
+            try (Writer writer = Files.newBufferedWriter(filePath)) {
+                properties.store(writer, null);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to save job durations to {}", filePath, e);
+        }
+    }
+
+    synchronized Optional<Duration> durationOf(String jobName) {
+        return Optional.ofNullable(millisByJobName.get(jobName)).map(Duration::ofMillis);
+    }
+
+    synchronized OptionalLong averageMillis() {
+        OptionalDouble average = millisByJobName.values().stream().mapToLong(Long::longValue).average();
+        return average.isPresent()
+                ? OptionalLong.of(Math.round(average.getAsDouble()))
+                : OptionalLong.empty();
+    }
+}
@@ -0,0 +1,10 @@
+package plankton.pipeline;
+
+public class JobExceedsCapacityException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    JobExceedsCapacityException(String msg) {
+        super(msg);
+    }
+}
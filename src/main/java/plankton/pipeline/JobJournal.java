@@ -0,0 +1,269 @@
+package plankton.pipeline;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import plankton.compose.ComposeService;
+
+class JobJournal {
+
+    private static final String FILE_NAME = "journal";
+    private static final int MAGIC = 0x504c4a33;
+    private static final byte JOB_RECORD = 1;
+    private static final byte RUN_COMPLETED_RECORD = 2;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+    private static final long SYNC_INTERVAL_MILLIS = 100;
+
+    private final Path filePath;
+    private final Map<String, Entry> lastEntryByJobName = new HashMap<>();
+    private boolean runCompleted;
+
+    private FileChannel channel;
+    private final Object channelLock = new Object();
+    private ScheduledThreadPoolExecutor syncExecutor;
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private static final Logger logger = LoggerFactory.getLogger(JobJournal.class);
+
+    @Getter
+    @AllArgsConstructor
+    static class Entry {
+        private final long epochMillis;
+        private final JobStatus status;
+        private final Integer exitCode;
+        private final int configurationHash;
+    }
+
+    // Without a directory nothing is recorded nor resumed
+    JobJournal(Path directory) {
+        filePath = directory == null ? null : directory.resolve(FILE_NAME);
+        if (filePath != null)
+            open();
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(filePath.getParent());
+            long validLength = Files.isRegularFile(filePath) ? load() : 0;
+            channel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (validLength == 0) {
+                channel.truncate(0);
+                channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, MAGIC));
+            } else {
+                channel.truncate(validLength);
+                channel.position(validLength);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            logger.warn("Unable to open job journal {}", filePath, e);
+            channel = null;
+            return;
+        }
+        syncExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "plankton-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncExecutor.scheduleWithFixedDelay(this::sync, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private long load() throws IOException {
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(filePath)))) {
+            if (in.readInt() != MAGIC) {
+                logger.warn("Ignoring job journal with unknown format: {}", filePath);
+                return 0;
+            }
+            validLength = Integer.BYTES;
+            while (true) {
+                int length = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_LENGTH)
+                    break;
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (in.readInt() != crcOf(payload))
+                    break;
+                readRecord(payload);
+                validLength += Integer.BYTES + length + Integer.BYTES;
+            }
+        } catch (EOFException e) {
+            logger.debug("End of job journal {} at {} bytes", filePath, validLength);
+        }
+        // Only a run that did not complete is resumed, the next one starts over
+        if (runCompleted) {
+            logger.info("Starting over the job journal: the previous run completed");
+            return 0;
+        }
+        logger.info("Resuming from job journal: {} jobs recorded", lastEntryByJobName.size());
+        return validLength;
+    }
+
+    private void readRecord(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte kind = in.readByte();
+        long epochMillis = in.readLong();
+        if (kind == RUN_COMPLETED_RECORD) {
+            lastEntryByJobName.clear();
+            runCompleted = true;
+            return;
+        }
+        runCompleted = false;
+        String jobName = in.readUTF();
+        String statusName = in.readUTF();
+        int exitCode = in.readInt();
+        int configurationHash = in.readInt();
+        try {
+            lastEntryByJobName.put(jobName, new Entry(epochMillis, JobStatus.valueOf(statusName),
+                    exitCode < 0 ? null : exitCode, configurationHash));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring unknown status {} of job {} in job journal", statusName, jobName);
+        }
+    }
+
+    synchronized void record(Job job) {
+        if (channel == null)
+            return;
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(JOB_RECORD);
+            out.writeLong(System.currentTimeMillis());
+            out.writeUTF(job.name);
+            out.writeUTF(job.status().name());
+            out.writeInt(job.exitCode() == null ? -1 : job.exitCode());
+            out.writeInt(configurationHashOf(job));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append(payload.toByteArray());
+    }
+
+    synchronized void recordRunCompleted() {
+        if (channel == null)
+            return;
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(16);
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(RUN_COMPLETED_RECORD);
+            out.writeLong(System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append(payload.toByteArray());
+    }
+
+    private void append(byte[] bytes) {
+        DataOutputStream out = new DataOutputStream(pending);
+        try {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeInt(crcOf(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Entries recorded with another configuration of the job are not resumed
+    Optional<Entry> lastEntryOf(Job job) {
+        Entry entry = lastEntryByJobName.get(job.name);
+        if (entry == null)
+            return Optional.empty();
+        if (entry.configurationHash != configurationHashOf(job)) {
+            logger.info("Not resuming {}: its configuration changed since it was recorded", job.name);
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+
+    static int configurationHashOf(Job job) {
+        ComposeService service = job.composeService;
+        StringBuilder configuration = new StringBuilder()
+                .append("image=").append(service.image()).append('\n')
+                .append("build=").append(service.build()).append('\n')
+                .append("command=").append(service.command()).append('\n')
+                .append("entrypoint=").append(service.entrypointIsReseted() ? "" : service.entrypoint()).append('\n')
+                .append("environment=").append(service.environment()).append('\n')
+                .append("env_file=").append(service.envFile()).append('\n')
+                .append("expose=").append(service.expose()).append('\n')
+                .append("group_add=").append(service.groupAdd()).append('\n')
+                .append("healthcheck=").append(service.healthcheck()).append('\n')
+                .append("user=").append(service.user()).append('\n')
+                .append("working_dir=").append(service.workingDir()).append('\n')
+                .append("volumes=").append(service.volumes()).append('\n');
+        job.dependencies.entrySet().stream()
+                .map(dependency -> dependency.getKey().name + ":" + dependency.getValue())
+                .sorted()
+                .forEach(dependency -> configuration.append("depends_on=").append(dependency).append('\n'));
+        return crcOf(configuration.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The batch is taken and written under one lock, so that close cannot overtake a scheduled sync
+    private void sync() {
+        synchronized (channelLock) {
+            ByteArrayOutputStream batch;
+            synchronized (this) {
+                if (channel == null || pending.size() == 0)
+                    return;
+                batch = pending;
+                pending = new ByteArrayOutputStream();
+            }
+            try {
+                channel.write(ByteBuffer.wrap(batch.toByteArray()));
+                channel.force(false);
+            } catch (IOException e) {
+                logger.warn("Unable to write job journal {}", filePath, e);
+            }
+        }
+    }
+
+    void close() {
+        if (syncExecutor == null)
+            return;
+        syncExecutor.shutdown();
+        try {
+            syncExecutor.awaitTermination(SYNC_INTERVAL_MILLIS * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (channelLock) {
+            sync();
+            synchronized (this) {
+                try {
+                    if (channel != null)
+                        channel.close();
+                } catch (IOException e) {
+                    logger.warn("Unable to close job journal {}", filePath, e);
+                }
+                channel = null;
+            }
+        }
+    }
+
+    private static int crcOf(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,123 @@
+package plankton.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a job log as a sequence of gzip members of at most {@link #CHUNK_SIZE} uncompressed bytes, so the whole
+ * file stays readable with zcat, and appends one fixed-size index record per chunk.
+ */
+class JobLogArchive implements Closeable {
+
+    static final int CHUNK_SIZE = 256 * 1024;
+    static final int GZIP_HEADER_SIZE = 10;
+    static final int GZIP_TRAILER_SIZE = 8;
+    // Uncompressed offset, first line number, compressed offset, compressed length, uncompressed length
+    static final int INDEX_RECORD_SIZE = 8 + 8 + 8 + 4 + 4;
+    static final int MAX_COMPRESSED_CHUNK_SIZE = CHUNK_SIZE + CHUNK_SIZE / 8 + 64;
+    private static final long MAX_CHUNK_AGE_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength = 0;
+    private long chunkStartNanos;
+    private final ByteBuffer compressed = ByteBuffer.allocate(MAX_COMPRESSED_CHUNK_SIZE);
+    private final ByteBuffer indexRecord = ByteBuffer.allocate(INDEX_RECORD_SIZE).order(ByteOrder.BIG_ENDIAN);
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+
+    private long uncompressedOffset = 0;
+    private long compressedOffset = 0;
+    private long lines = 0;
+
+    JobLogArchive(Path dataPath, Path indexPath) throws IOException {
+        data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+    }
+
+    void write(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            if (chunkLength == 0)
+                chunkStartNanos = System.nanoTime();
+            int length = Math.min(source.remaining(), CHUNK_SIZE - chunkLength);
+            source.get(chunk, chunkLength, length);
+            chunkLength += length;
+            if (chunkLength == CHUNK_SIZE)
+                writeChunk();
+        }
+    }
+
+    // Seals an old partial chunk, so that slow logs become readable before a full chunk accumulates
+    void flush() throws IOException {
+        if (chunkLength > 0 && System.nanoTime() - chunkStartNanos >= MAX_CHUNK_AGE_NANOS)
+            writeChunk();
+    }
+
+    private void writeChunk() throws IOException {
+        crc.reset();
+        crc.update(chunk, 0, chunkLength);
+        deflater.reset();
+        deflater.setInput(chunk, 0, chunkLength);
+        deflater.finish();
+        compressed.clear();
+        compressed.order(ByteOrder.LITTLE_ENDIAN);
+        compressed.put(GZIP_HEADER);
+        while (!deflater.finished()) {
+            int written = deflater.deflate(compressed.array(), compressed.position(),
+                    compressed.remaining() - GZIP_TRAILER_SIZE);
+            compressed.position(compressed.position() + written);
+        }
+        compressed.putInt((int) crc.getValue());
+        compressed.putInt(chunkLength);
+        compressed.flip();
+        int compressedLength = compressed.remaining();
+        while (compressed.hasRemaining())
+            data.write(compressed);
+
+        indexRecord.clear();
+        indexRecord.putLong(uncompressedOffset);
+        indexRecord.putLong(lines);
+        indexRecord.putLong(compressedOffset);
+        indexRecord.putInt(compressedLength);
+        indexRecord.putInt(chunkLength);
+        indexRecord.flip();
+        while (indexRecord.hasRemaining())
+            index.write(indexRecord);
+
+        for (int i = 0; i < chunkLength; i++)
+            if (chunk[i] == '\n')
+                lines++;
+        uncompressedOffset += chunkLength;
+        compressedOffset += compressedLength;
+        chunkLength = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (chunkLength > 0)
+                writeChunk();
+        } finally {
+            deflater.end();
+            data.close();
+            index.close();
+        }
+    }
+}
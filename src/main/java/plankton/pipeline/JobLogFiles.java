@@ -0,0 +1,179 @@
+package plankton.pipeline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the lines of each job as they reach the log bus, already decoded for the console and the index: the files
+ * hold their UTF-8 encoding, with malformed input replaced and line breaks normalized to {@code \n}, rather than the
+ * raw bytes of the output.
+ */
+class JobLogFiles implements LogSink {
+
+    private static final String FILE_EXTENSION = ".log";
+    private static final String ARCHIVE_EXTENSION = ".log.gz";
+    private static final String INDEX_EXTENSION = ".log.idx";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final boolean compress;
+    private final Map<Job, JobLogFile> files = new HashMap<>();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private boolean closed = false;
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLogFiles.class);
+
+    private static class JobLogFile {
+        private FileChannel channel;
+        private JobLogArchive archive;
+        private final ByteBuffer buffer;
+
+        JobLogFile(boolean compress) {
+            buffer = compress ? ByteBuffer.allocate(BUFFER_SIZE) : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        boolean isOpen() {
+            return channel != null || archive != null;
+        }
+    }
+
+    JobLogFiles(Path directory, boolean compress) {
+        this.directory = directory;
+        this.compress = compress;
+    }
+
+    Path pathOf(Job job) {
+        return directory.resolve(job.name + (compress ? ARCHIVE_EXTENSION : FILE_EXTENSION));
+    }
+
+    private Path indexPathOf(Job job) {
+        return directory.resolve(job.name + INDEX_EXTENSION);
+    }
+
+    Optional<LogReader> reader(Job job) throws IOException {
+        Path path = pathOf(job);
+        if (!Files.isRegularFile(path))
+            return Optional.empty();
+        return Optional.of(compress ? new ArchivedLogReader(path, indexPathOf(job)) : new PlainLogReader(path));
+    }
+
+    @Override
+    public void write(LogLine line) {
+        if (closed)
+            return;
+        JobLogFile file = files.computeIfAbsent(line.job(), this::open);
+        if (!file.isOpen())
+            return;
+        String text = line.text();
+        int length = text.length();
+        int ascii = 0;
+        // Output is mostly ASCII, which is copied as is; the encoder only takes over from the first other character
+        for (char c; ascii < length && (c = text.charAt(ascii)) < 0x80; ascii++) {
+            if (!file.buffer.hasRemaining())
+                writeOut(line.job(), file);
+            file.buffer.put((byte) c);
+        }
+        if (ascii < length) {
+            CharBuffer rest = CharBuffer.wrap(text, ascii, length);
+            encoder.reset();
+            while (encoder.encode(rest, file.buffer, true).isOverflow())
+                writeOut(line.job(), file);
+        }
+        if (!file.buffer.hasRemaining())
+            writeOut(line.job(), file);
+        file.buffer.put((byte) '\n');
+    }
+
+    private JobLogFile open(Job job) {
+        JobLogFile file = new JobLogFile(compress);
+        Path path = pathOf(job);
+        try {
+            Files.createDirectories(directory);
+            if (compress)
+                file.archive = new JobLogArchive(path, indexPathOf(job));
+            else
+                file.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Unable to open log file {}", path, e);
+        }
+        return file;
+    }
+
+    private void writeOut(Job job, JobLogFile file) {
+        file.buffer.flip();
+        try {
+            if (file.archive != null)
+                file.archive.write(file.buffer);
+            while (file.channel != null && file.buffer.hasRemaining())
+                file.channel.write(file.buffer);
+        } catch (IOException e) {
+            logger.warn("Unable to write log file {}", pathOf(job), e);
+            closeQuietly(file);
+        }
+        file.buffer.clear();
+    }
+
+    @Override
+    public void flush() {
+        files.forEach((job, file) -> {
+            if (file.isOpen() && file.buffer.position() > 0)
+                writeOut(job, file);
+            if (file.archive != null) {
+                try {
+                    file.archive.flush();
+                } catch (IOException e) {
+                    logger.warn("Unable to write log file {}", pathOf(job), e);
+                    closeQuietly(file);
+                }
+            }
+        });
+    }
+
+    // The entry stays, closed, so that a late line does not truncate the file by opening it again
+    @Override
+    public void finish(Job job) {
+        JobLogFile file = files.get(job);
+        if (file == null || !file.isOpen())
+            return;
+        if (file.buffer.position() > 0)
+            writeOut(job, file);
+        closeQuietly(file);
+    }
+
+    @Override
+    public void close() {
+        flush();
+        files.values().forEach(JobLogFiles::closeQuietly);
+        closed = true;
+    }
+
+    private static void closeQuietly(JobLogFile file) {
+        try {
+            if (file.channel != null)
+                file.channel.close();
+            if (file.archive != null)
+                file.archive.close();
+        } catch (IOException e) {
+            logger.debug("Unable to close log file", e);
+        }
+        file.channel = null;
+        file.archive = null;
+    }
+}
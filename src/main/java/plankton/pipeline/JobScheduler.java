@@ -0,0 +1,250 @@
+package plankton.pipeline;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import plankton.compose.DependsOnCondition;
+
+class JobScheduler {
+
+    private final Pipeline pipeline;
+
+    private final Set<Job> jobsWaitingForDependencies = new HashSet<>();
+    private final NavigableSet<Job> jobsScheduled = new TreeSet<>(Comparator
+            .comparingLong((Job job) -> job.longestRemainingPath).reversed()
+            .thenComparing(Job::dependencyLevel)
+            .thenComparing(Job::name));
+    private final Set<Job> jobsRunning = new HashSet<>();
+    private final List<Job> jobsFinished = new ArrayList<>();
+    private int jobsFailed = 0;
+
+    private static final Logger logger = LoggerFactory.getLogger(JobScheduler.class);
+
+    JobScheduler(Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    void initialize() {
+        initializeLongestRemainingPaths();
+        restoreJobsFromJournal();
+        pipeline.jobs.forEach(job -> {
+            job.unsatisfiedDependencies = job.dependencies.size();
+            job.dependentsWithoutFinalStatus = job.dependents.size();
+        });
+        pipeline.jobs.forEach(job -> {
+            if (job.status().isFinal())
+                return;
+            if (job.unsatisfiedDependencies == 0)
+                schedule(job);
+            else
+                jobsWaitingForDependencies.add(job);
+        });
+        pipeline.jobs.stream()
+                .filter(job -> job.status().isFinal())
+                .forEach(this::finishRestored);
+    }
+
+    private void restoreJobsFromJournal() {
+        for (int level = pipeline.dependencyLevels.size() - 1; level >= 0; level--) {
+            pipeline.dependencyLevels.get(level).forEach(job -> {
+                Optional<JobJournal.Entry> entry = pipeline.jobJournal.lastEntryOf(job);
+                if (entry.isPresent() && entry.get().getStatus().isSucceeded())
+                    job.restore(entry.get().getStatus(), entry.get().getExitCode());
+                else if (job.autoStopWhenDirectDependentsHaveFinalStatus && !job.dependents.isEmpty()
+                        && job.dependents.keySet().stream().allMatch(dependentJob -> dependentJob.status().isFinal()))
+                    job.restore(JobStatus.SKIPPED, null);
+            });
+        }
+    }
+
+    private void finishRestored(Job job) {
+        jobsFinished.add(job);
+        satisfyCondition(job, DependsOnCondition.SERVICE_STARTED);
+        satisfyCondition(job, DependsOnCondition.SERVICE_HEALTHY);
+        satisfyCondition(job, DependsOnCondition.SERVICE_COMPLETED_SUCCESSFULLY);
+        releaseDependencies(job);
+    }
+
+    private void initializeLongestRemainingPaths() {
+        JobDurationHistory history = pipeline.jobDurationHistory;
+        long defaultWeight = history.averageMillis().orElse(1L);
+        for (int level = pipeline.dependencyLevels.size() - 1; level >= 0; level--) {
+            pipeline.dependencyLevels.get(level).forEach(job -> {
+                long weight = history.durationOf(job.name).map(Duration::toMillis).orElse(defaultWeight);
+                long longestDependentPath = job.dependents.keySet().stream()
+                        .mapToLong(dependentJob -> dependentJob.longestRemainingPath)
+                        .max().orElse(0L);
+                job.longestRemainingPath = weight + longestDependentPath;
+                logger.debug("Longest remaining path: {} = {}", job, job.longestRemainingPath);
+            });
+        }
+    }
+
+    private void schedule(Job job) {
+        job.readyInstant = Instant.now();
+        jobsScheduled.add(job);
+        logger.debug("Job scheduled: {}", job);
+    }
+
+    // Jobs that do not fit stay in place while the smaller jobs after them are started
+    int startScheduledJobs() {
+        ResourceCapacity capacity = pipeline.resourceCapacity;
+        int jobsStarted = 0;
+        Iterator<Job> iterator = jobsScheduled.iterator();
+        while (!capacity.isFull() && iterator.hasNext()) {
+            Job job = iterator.next();
+            if (pipeline.imagePrefetcher.isPrefetching(job) || !capacity.fits(job))
+                continue;
+            iterator.remove();
+            capacity.acquire(job);
+            jobsRunning.add(job);
+            if (pipeline.trace != null)
+                job.slot = pipeline.trace.acquireSlot();
+            job.start();
+            pipeline.watchdog.watch(job);
+            jobsStarted++;
+            logger.debug("Job started: {} ({})", job, capacity);
+        }
+        return jobsStarted;
+    }
+
+    private void removeRunningJob(Job job) {
+        if (jobsRunning.remove(job)) {
+            pipeline.resourceCapacity.release(job);
+            pipeline.watchdog.unwatch(job);
+            if (pipeline.trace != null) {
+                // Spans recorded from now on, such as stopping a timed-out job, must not land on the track of the
+                // next job given the slot
+                int slot = job.slot;
+                job.slot = -1;
+                pipeline.trace.releaseSlot(slot);
+            }
+        }
+    }
+
+    void cancelPendingJobs(String reason) {
+        List<Job> pendingJobs = new ArrayList<>(jobsScheduled);
+        jobsScheduled.clear();
+        pendingJobs.addAll(jobsWaitingForDependencies);
+        jobsWaitingForDependencies.clear();
+        pendingJobs.forEach(job -> finishBlocked(job, reason));
+    }
+
+    List<Job> runningJobs() {
+        return new ArrayList<>(jobsRunning);
+    }
+
+    void satisfyCondition(Job job, DependsOnCondition satisfiedCondition) {
+        if (!job.satisfiedConditions.add(satisfiedCondition))
+            return;
+        job.dependents.forEach((dependentJob, requiredCondition) -> {
+            if (satisfiedCondition == requiredCondition) {
+                dependentJob.unsatisfiedDependencies--;
+                if (pipeline.trace != null)
+                    pipeline.trace.dependencySatisfied(job, dependentJob, satisfiedCondition.toString().toLowerCase());
+                logger.debug("Dependency satisfied: {} depends on {} with status {}", dependentJob, job,
+                        satisfiedCondition);
+                if (dependentJob.unsatisfiedDependencies == 0 && jobsWaitingForDependencies.remove(dependentJob)) {
+                    dependentJob.readyAfter = job;
+                    schedule(dependentJob);
+                }
+            }
+        });
+    }
+
+    void finishSuccessfully(Job job) {
+        removeRunningJob(job);
+        jobsFinished.add(job);
+        if (job.status().isCached()) {
+            satisfyCondition(job, DependsOnCondition.SERVICE_STARTED);
+            satisfyCondition(job, DependsOnCondition.SERVICE_HEALTHY);
+        } else {
+            pipeline.jobDurationHistory.record(job);
+        }
+        satisfyCondition(job, DependsOnCondition.SERVICE_COMPLETED_SUCCESSFULLY);
+        releaseDependencies(job);
+    }
+
+    void finishWithFailure(Job job) {
+        if (!jobsWaitingForDependencies.remove(job))
+            removeRunningJob(job);
+        jobsFinished.add(job);
+        jobsFailed++;
+        releaseDependencies(job);
+        blockDownstreamJobs(job);
+    }
+
+    private void blockDownstreamJobs(Job failedJob) {
+        Queue<Job> failedJobs = new ArrayDeque<>();
+        failedJobs.add(failedJob);
+        while (!failedJobs.isEmpty()) {
+            Job job = failedJobs.remove();
+            job.dependents.forEach((dependentJob, requiredCondition) -> {
+                if (!job.satisfiedConditions.contains(requiredCondition)
+                        && jobsWaitingForDependencies.remove(dependentJob)
+                        && finishBlocked(dependentJob, "Blocked by dependencies"))
+                    failedJobs.add(dependentJob);
+            });
+        }
+    }
+
+    private boolean finishBlocked(Job job, String reason) {
+        if (!job.markBlocked(reason))
+            return false;
+        jobsFinished.add(job);
+        jobsFailed++;
+        releaseDependencies(job);
+        return true;
+    }
+
+    private void releaseDependencies(Job job) {
+        job.dependencies.keySet().forEach(dependencyJob -> {
+            dependencyJob.dependentsWithoutFinalStatus--;
+            if (dependencyJob.dependentsWithoutFinalStatus == 0
+                    && dependencyJob.autoStopWhenDirectDependentsHaveFinalStatus
+                    && !dependencyJob.status().isFinal()) {
+                logger.debug("Auto stopping job: {}", dependencyJob);
+                pipeline.metrics.autoStops.increment();
+                dependencyJob.stop();
+            }
+        });
+    }
+
+    int jobsWaitingCount() {
+        return jobsWaitingForDependencies.size();
+    }
+
+    int jobsScheduledCount() {
+        return jobsScheduled.size();
+    }
+
+    int jobsRunningCount() {
+        return jobsRunning.size();
+    }
+
+    int jobsFinishedCount() {
+        return jobsFinished.size();
+    }
+
+    boolean isFinished() {
+        return jobsFinished.size() == pipeline.jobs.size();
+    }
+
+    boolean hasFailures() {
+        return jobsFailed > 0;
+    }
+}
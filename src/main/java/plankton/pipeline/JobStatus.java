@@ -1,7 +1,7 @@
 package plankton.pipeline;
 
 public enum JobStatus {
-    CREATED, WAITING, PULLING, BUILDING, RUNNING, BLOCKED, ERROR, BUILT, EXITED_ZERO, EXITED_NON_ZERO;
+    CREATED, WAITING, PULLING, BUILDING, RUNNING, BLOCKED, ERROR, TIMED_OUT, CANCELED, BUILT, CACHED, SKIPPED, EXITED_ZERO, EXITED_NON_ZERO;
 
     public boolean isWaiting() {
         return this == WAITING;
@@ -27,10 +27,26 @@ public enum JobStatus {
         return this == ERROR;
     }
 
+    public boolean isTimedOut() {
+        return this == TIMED_OUT;
+    }
+
+    public boolean isCanceled() {
+        return this == CANCELED;
+    }
+
     public boolean isBuilt() {
         return this == BUILT;
     }
 
+    public boolean isCached() {
+        return this == CACHED;
+    }
+
+    public boolean isSkipped() {
+        return this == SKIPPED;
+    }
+
     public boolean isExitedZero() {
         return this == EXITED_ZERO;
     }
@@ -40,11 +56,11 @@ public enum JobStatus {
     }
 
     public boolean isFailed() {
-        return isBlocked() || isError() || isExitedNonZero();
+        return isBlocked() || isError() || isTimedOut() || isCanceled() || isExitedNonZero();
     }
 
     public boolean isSucceeded() {
-        return isBuilt() || isExitedZero();
+        return isBuilt() || isCached() || isSkipped() || isExitedZero();
     }
 
     public boolean isFinal() {
@@ -0,0 +1,55 @@
+package plankton.pipeline;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class JobWatchdog {
+
+    private final Pipeline pipeline;
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<Job, ScheduledFuture<?>> deadlines = new HashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(JobWatchdog.class);
+
+    JobWatchdog(Pipeline pipeline) {
+        this.pipeline = pipeline;
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "plankton-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    void watchPipeline(Duration timeout) {
+        logger.debug("Pipeline timeout: {}", timeout);
+        executor.schedule(pipeline::notifyPipelineTimedOut, timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void watch(Job job) {
+        if (job.timeout == null)
+            return;
+        logger.debug("Job timeout: {} = {}", job, job.timeout);
+        deadlines.put(job, executor.schedule(() -> {
+            unwatch(job);
+            job.timeOut();
+        }, job.timeout.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    synchronized void unwatch(Job job) {
+        ScheduledFuture<?> deadline = deadlines.remove(job);
+        if (deadline != null)
+            deadline.cancel(false);
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,382 @@
+package plankton.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class LogBus {
+
+    private static final int BATCH_SIZE = 256;
+    private static final int SAMPLE_RATE = 10;
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // Bounded multi-producer multi-consumer ring: a slot can be written when its sequence equals the enqueue
+    // position, and read when it equals the dequeue position plus one
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final Publisher[] publishers;
+    private final boolean[] errors;
+    private final String[] texts;
+    private final long[] epochMillis;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+    // Lines a drop-oldest job publishes while the ring is full wait in its own queue of this size
+    private final int overflowCapacity;
+
+    private final List<LogSink> sinks = new CopyOnWriteArrayList<>();
+    private final List<Publisher> allPublishers = new CopyOnWriteArrayList<>();
+    private final Queue<Publisher> closedPublishers = new ConcurrentLinkedQueue<>();
+    private final LogLine[] batch = new LogLine[BATCH_SIZE];
+    private final LogLine droppedLinesNotice = new LogLine();
+
+    private final Thread writer;
+    private volatile boolean writerParked = false;
+    private volatile boolean closed = false;
+    private volatile long writtenPosition = 0;
+    private final AtomicInteger flushWaiters = new AtomicInteger();
+
+    private static final Logger logger = LoggerFactory.getLogger(LogBus.class);
+
+    LogBus(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.capacity = size;
+        mask = size - 1;
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+        publishers = new Publisher[size];
+        errors = new boolean[size];
+        texts = new String[size];
+        epochMillis = new long[size];
+        overflowCapacity = Math.max(1, size / 4);
+        for (int i = 0; i < BATCH_SIZE; i++)
+            batch[i] = new LogLine();
+        sinks.add(new ConsoleLogSink());
+        writer = new Thread(this::drain, "plankton-log-bus");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    void addSink(LogSink sink) {
+        sinks.add(sink);
+    }
+
+    Publisher publisher(Job job, LogOverflowPolicy overflowPolicy) {
+        Publisher publisher = new Publisher(job, overflowPolicy);
+        allPublishers.add(publisher);
+        return publisher;
+    }
+
+    class Publisher {
+
+        private final Job job;
+        private final LogOverflowPolicy overflowPolicy;
+        private final AtomicLong droppedLines = new AtomicLong();
+        private final AtomicLong sampledLines = new AtomicLong();
+        // Guarded by this publisher; the ring position of its latest line, whose overflow is written after it
+        private final ArrayDeque<LogLine> overflow = new ArrayDeque<>();
+        private long lastRingPosition = -1;
+        private volatile boolean closed = false;
+
+        private Publisher(Job job, LogOverflowPolicy overflowPolicy) {
+            this.job = job;
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        void output(String text) {
+            publish(this, false, text);
+        }
+
+        void error(String text) {
+            publish(this, true, text);
+        }
+
+        // Waits until the lines published so far by this publisher have been written
+        void flush() {
+            LogBus.this.flush();
+            synchronized (this) {
+                try {
+                    while (!overflow.isEmpty() && writer.isAlive())
+                        wait(IDLE_PARK_NANOS / 1_000_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        // Writes the lines published so far, then lets the sinks release what they hold for the job
+        void close() {
+            flush();
+            closed = true;
+            closedPublishers.add(this);
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void publish(Publisher publisher, boolean error, String text) {
+        if (closed || publisher.closed) {
+            logger.debug("Dropping a line of {} published after its log was closed", publisher.job);
+            return;
+        }
+        if (publisher.overflowPolicy == LogOverflowPolicy.SAMPLE && size() > capacity / 2
+                && publisher.sampledLines.getAndIncrement() % SAMPLE_RATE != 0) {
+            publisher.droppedLines.incrementAndGet();
+            return;
+        }
+        if (publisher.overflowPolicy == LogOverflowPolicy.DROP_OLDEST) {
+            publishDroppingOldest(publisher, error, text);
+            if (writerParked)
+                LockSupport.unpark(writer);
+            return;
+        }
+        while (tryEnqueue(publisher, error, text) < 0) {
+            switch (publisher.overflowPolicy) {
+                case BLOCK:
+                    LockSupport.unpark(writer);
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    if (closed) {
+                        logger.debug("Dropping a line of {} published after the log bus was closed", publisher.job);
+                        return;
+                    }
+                    break;
+                default:
+                    publisher.droppedLines.incrementAndGet();
+                    return;
+            }
+        }
+        if (writerParked)
+            LockSupport.unpark(writer);
+    }
+
+    // Once a line waits in the publisher's queue, the following ones queue behind it to keep the job's lines in order,
+    // and only the job's own oldest lines are dropped
+    private void publishDroppingOldest(Publisher publisher, boolean error, String text) {
+        synchronized (publisher) {
+            if (publisher.overflow.isEmpty()) {
+                long position = tryEnqueue(publisher, error, text);
+                if (position >= 0) {
+                    publisher.lastRingPosition = position;
+                    return;
+                }
+            }
+            if (publisher.overflow.size() == overflowCapacity) {
+                publisher.overflow.removeFirst();
+                publisher.droppedLines.incrementAndGet();
+            }
+            publisher.overflow.addLast(newLine(publisher, error, text));
+        }
+    }
+
+    // Returns the position of the line, or -1 when the ring is full
+    private long tryEnqueue(Publisher publisher, boolean error, String text) {
+        long position = enqueuePosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    publishers[index] = publisher;
+                    errors[index] = error;
+                    texts[index] = text;
+                    epochMillis[index] = System.currentTimeMillis();
+                    sequences.set(index, position + 1);
+                    return position;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return -1;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+    }
+
+    private boolean tryDequeue(LogLine target) {
+        long position = dequeuePosition.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    target.job = publishers[index].job;
+                    target.error = errors[index];
+                    target.text = texts[index];
+                    target.epochMillis = epochMillis[index];
+                    publishers[index] = null;
+                    texts[index] = null;
+                    sequences.set(index, position + capacity);
+                    return true;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+    }
+
+    private long size() {
+        return enqueuePosition.get() - dequeuePosition.get();
+    }
+
+    private void drain() {
+        while (true) {
+            int count = 0;
+            while (count < BATCH_SIZE && tryDequeue(batch[count]))
+                count++;
+            if (count > 0)
+                write(count);
+            int overflowCount = writeOverflow();
+            reportDroppedLines();
+            finishClosedPublishers();
+            writtenPosition = dequeuePosition.get();
+            if (flushWaiters.get() > 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+            if (count == 0 && overflowCount == 0) {
+                if (closed && size() == 0 && !hasOverflow())
+                    break;
+                writerParked = true;
+                if (size() == 0)
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                writerParked = false;
+            }
+        }
+        sinks.forEach(LogSink::close);
+    }
+
+    private void write(int count) {
+        for (LogSink sink : sinks) {
+            try {
+                for (int i = 0; i < count; i++)
+                    sink.write(batch[i]);
+                sink.flush();
+            } catch (RuntimeException e) {
+                logger.warn("Unable to write log lines to {}", sink, e);
+            }
+        }
+        for (int i = 0; i < count; i++)
+            batch[i].text = null;
+    }
+
+    // Writes the queued lines of the publishers whose lines in the ring have all been written
+    private int writeOverflow() {
+        int count = 0;
+        long written = dequeuePosition.get();
+        List<LogLine> lines = new ArrayList<>();
+        for (Publisher publisher : allPublishers) {
+            synchronized (publisher) {
+                if (publisher.overflow.isEmpty() || publisher.lastRingPosition >= written)
+                    continue;
+                lines.addAll(publisher.overflow);
+                publisher.overflow.clear();
+                publisher.notifyAll();
+            }
+            for (LogSink sink : sinks) {
+                try {
+                    for (LogLine line : lines)
+                        sink.write(line);
+                    sink.flush();
+                } catch (RuntimeException e) {
+                    logger.warn("Unable to write log lines to {}", sink, e);
+                }
+            }
+            count += lines.size();
+            lines.clear();
+        }
+        return count;
+    }
+
+    private boolean hasOverflow() {
+        for (Publisher publisher : allPublishers) {
+            synchronized (publisher) {
+                if (!publisher.overflow.isEmpty())
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private void reportDroppedLines() {
+        for (Publisher publisher : allPublishers) {
+            long dropped = publisher.droppedLines.getAndSet(0);
+            if (dropped == 0)
+                continue;
+            droppedLinesNotice.job = publisher.job;
+            droppedLinesNotice.error = true;
+            droppedLinesNotice.text = "[" + dropped + " log lines dropped by " + publisher.overflowPolicy
+                    + " overflow policy]";
+            droppedLinesNotice.epochMillis = System.currentTimeMillis();
+            for (LogSink sink : sinks) {
+                sink.write(droppedLinesNotice);
+                sink.flush();
+            }
+        }
+    }
+
+    private void finishClosedPublishers() {
+        for (Publisher publisher; (publisher = closedPublishers.poll()) != null;) {
+            for (LogSink sink : sinks) {
+                try {
+                    sink.finish(publisher.job);
+                } catch (RuntimeException e) {
+                    logger.warn("Unable to finish the log of {} in {}", publisher.job, sink, e);
+                }
+            }
+        }
+    }
+
+    private static LogLine newLine(Publisher publisher, boolean error, String text) {
+        LogLine line = new LogLine();
+        line.job = publisher.job;
+        line.error = error;
+        line.text = text;
+        line.epochMillis = System.currentTimeMillis();
+        return line;
+    }
+
+    // Waits until the lines published so far have been written
+    void flush() {
+        long target = enqueuePosition.get();
+        if (!writer.isAlive())
+            return;
+        flushWaiters.incrementAndGet();
+        try {
+            LockSupport.unpark(writer);
+            synchronized (this) {
+                while (writtenPosition < target && writer.isAlive())
+                    wait(IDLE_PARK_NANOS / 1_000_000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushWaiters.decrementAndGet();
+        }
+    }
+
+    void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package plankton.pipeline;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incremental inverted index of job output. Each term maps to the lines it appears on, by job. When the estimated
+ * memory use exceeds the limit, the postings are written to a segment file on disk, as (job, line) pairs packed into
+ * sorted longs.
+ */
+class LogIndex implements LogSink {
+
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int INITIAL_POSTINGS = 4;
+    private static final long EXHAUSTED = Long.MAX_VALUE;
+    // Rough heap cost of a term entry: map node, string, array headers
+    private static final long TERM_OVERHEAD = 112;
+    private static final int SPARSE_INDEX_INTERVAL = 64;
+
+    private final Path directory;
+    private final long memoryLimit;
+
+    private final Map<Job, Integer> jobIds = new IdentityHashMap<>();
+    private final List<Job> jobs = new ArrayList<>();
+    private int[] jobLines = new int[16];
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private final char[] termBuffer = new char[MAX_TERM_LENGTH];
+    private long memoryUsed = 0;
+    private long indexedLines = 0;
+    private boolean spillFailed = false;
+
+    private static final Logger logger = LoggerFactory.getLogger(LogIndex.class);
+
+    // Lines only arrive in ascending order for a job, so each job's lines are kept sorted by appending. An array is
+    // only written past the size a search has seen, or replaced when it grows.
+    private static class Postings {
+        private int[][] lines = new int[0][];
+        private int[] sizes = new int[0];
+        private int count = 0;
+
+        // Returns the bytes allocated
+        long add(int job, int line) {
+            long allocated = 0;
+            if (job >= lines.length) {
+                allocated += 8L * (job + 1 - lines.length);
+                lines = Arrays.copyOf(lines, job + 1);
+                sizes = Arrays.copyOf(sizes, job + 1);
+            }
+            int size = sizes[job];
+            if (size > 0 && lines[job][size - 1] == line)
+                return allocated;
+            if (lines[job] == null) {
+                lines[job] = new int[INITIAL_POSTINGS];
+                allocated += 16 + 4L * INITIAL_POSTINGS;
+            } else if (size == lines[job].length) {
+                lines[job] = Arrays.copyOf(lines[job], size * 2);
+                allocated += 4L * size;
+            }
+            lines[job][size] = line;
+            sizes[job] = size + 1;
+            count++;
+            return allocated;
+        }
+
+        Cursor cursor() {
+            return new PostingsCursor(lines.clone(), sizes.clone());
+        }
+    }
+
+    LogIndex(Path directory, long memoryLimit) {
+        this.directory = directory;
+        this.memoryLimit = memoryLimit;
+        deleteSegments();
+    }
+
+    @Override
+    public synchronized void write(LogLine line) {
+        int job = jobIds.computeIfAbsent(line.job(), this::register);
+        int lineNumber = jobLines[job]++;
+        indexedLines++;
+        forEachTerm(line.text(), termBuffer, term -> add(term, job, lineNumber));
+        if (memoryUsed > memoryLimit && !spillFailed)
+            spill();
+    }
+
+    // Terms are lower-cased runs of letters and digits
+    private static void forEachTerm(String text, char[] buffer, Consumer<String> action) {
+        int length = 0;
+        for (int i = 0, end = text.length(); i <= end; i++) {
+            char c = i < end ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (length < MAX_TERM_LENGTH)
+                    buffer[length] = Character.toLowerCase(c);
+                length++;
+            } else {
+                if (length >= MIN_TERM_LENGTH && length <= MAX_TERM_LENGTH)
+                    action.accept(new String(buffer, 0, length));
+                length = 0;
+            }
+        }
+    }
+
+    private int register(Job job) {
+        jobs.add(job);
+        if (jobs.size() > jobLines.length)
+            jobLines = Arrays.copyOf(jobLines, jobLines.length * 2);
+        return jobs.size() - 1;
+    }
+
+    private void add(String term, int job, int line) {
+        Postings list = postings.get(term);
+        if (list == null) {
+            list = new Postings();
+            postings.put(term, list);
+            memoryUsed += TERM_OVERHEAD + 2L * term.length();
+        }
+        memoryUsed += list.add(job, line);
+    }
+
+    private void spill() {
+        Path path = directory.resolve("segment-" + segments.size() + ".idx");
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            segments.add(Segment.write(path, postings));
+        } catch (IOException e) {
+            logger.warn("Unable to write log index segment {}, indexing will continue in memory", path, e);
+            spillFailed = true;
+            return;
+        }
+        logger.debug("Wrote log index segment {} with {} terms in {} ms", path, postings.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        postings.clear();
+        memoryUsed = 0;
+    }
+
+    LogSearchResult search(String query, int limit) {
+        long start = System.nanoTime();
+        List<String> terms = tokenize(query);
+        List<Segment> searchedSegments;
+        List<Cursor> inMemory = new ArrayList<>();
+        List<Job> searchedJobs;
+        long searchedLines;
+        // Segments are not modified once written, and the lines in memory are only appended, so only the arrays of
+        // lines by job are copied under the lock, and the postings are read outside of it
+        synchronized (this) {
+            searchedSegments = new ArrayList<>(segments);
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                inMemory.add(list == null ? null : list.cursor());
+            }
+            searchedJobs = new ArrayList<>(jobs);
+            searchedLines = indexedLines;
+        }
+        List<Cursor> cursors = new ArrayList<>();
+        for (int i = 0; i < terms.size(); i++)
+            cursors.add(lookup(searchedSegments, terms.get(i), inMemory.get(i)));
+        List<Long> matches = new ArrayList<>();
+        long matchingLines = 0;
+        // Matches past the limit are only counted
+        for (long match = intersection(cursors, 0); match != EXHAUSTED; match = intersection(cursors, match + 1)) {
+            if (matches.size() < limit)
+                matches.add(match);
+            matchingLines++;
+        }
+        LogSearchResult result = new LogSearchResult(terms, matchingLines, searchedLines);
+        for (long match : matches)
+            result.add(searchedJobs.get((int) (match >>> 32)).name, (int) match);
+        result.elapsedMicros = (System.nanoTime() - start) / 1000;
+        return result;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        forEachTerm(text, new char[MAX_TERM_LENGTH], term -> {
+            if (!terms.contains(term))
+                terms.add(term);
+        });
+        return terms;
+    }
+
+    // Postings of a term across the segments and memory, merged in order
+    private static Cursor lookup(List<Segment> segments, String term, Cursor inMemory) {
+        List<Cursor> parts = new ArrayList<>();
+        for (Segment segment : segments) {
+            try {
+                segment.lookup(term).ifPresent(parts::add);
+            } catch (IOException e) {
+                logger.warn("Unable to read log index segment {}", segment.path, e);
+            }
+        }
+        if (inMemory != null)
+            parts.add(inMemory);
+        return parts.size() == 1 ? parts.get(0) : new MergeCursor(parts);
+    }
+
+    // The first posting from the given one on that every cursor has, or EXHAUSTED
+    private static long intersection(List<Cursor> cursors, long from) {
+        if (cursors.isEmpty())
+            return EXHAUSTED;
+        long target = from;
+        for (int matched = 0, i = 0; matched < cursors.size(); i = (i + 1) % cursors.size()) {
+            long posting = cursors.get(i).skipTo(target);
+            if (posting == EXHAUSTED)
+                return EXHAUSTED;
+            if (posting == target) {
+                matched++;
+            } else {
+                target = posting;
+                matched = 1;
+            }
+        }
+        return target;
+    }
+
+    // Sorted postings, read one at a time
+    private abstract static class Cursor {
+
+        long current = -1;
+
+        // Moves to the next posting, or EXHAUSTED
+        abstract long next();
+
+        long skipTo(long target) {
+            while (current < target)
+                current = next();
+            return current;
+        }
+    }
+
+    private static class PostingsCursor extends Cursor {
+
+        private final int[][] lines;
+        private final int[] sizes;
+        private int job = 0;
+        private int index = -1;
+
+        PostingsCursor(int[][] lines, int[] sizes) {
+            this.lines = lines;
+            this.sizes = sizes;
+        }
+
+        @Override
+        long next() {
+            index++;
+            while (job < sizes.length && index >= sizes[job]) {
+                job++;
+                index = 0;
+            }
+            return job < sizes.length ? (long) job << 32 | lines[job][index] : EXHAUSTED;
+        }
+    }
+
+    // The postings of a line are in one part only
+    private static class MergeCursor extends Cursor {
+
+        private final PriorityQueue<Cursor> parts = new PriorityQueue<>(Comparator.comparingLong(part -> part.current));
+
+        MergeCursor(List<Cursor> parts) {
+            for (Cursor part : parts) {
+                if (part.skipTo(0) != EXHAUSTED)
+                    this.parts.add(part);
+            }
+        }
+
+        @Override
+        long next() {
+            return skipTo(current + 1);
+        }
+
+        @Override
+        long skipTo(long target) {
+            while (!parts.isEmpty() && parts.peek().current < target) {
+                Cursor part = parts.poll();
+                if (part.skipTo(target) != EXHAUSTED)
+                    parts.add(part);
+            }
+            current = parts.isEmpty() ? EXHAUSTED : parts.peek().current;
+            return current;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.forEach(Segment::close);
+    }
+
+    private void deleteSegments() {
+        if (!Files.isDirectory(directory))
+            return;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator)
+                Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Unable to delete log index segments in {}", directory, e);
+        }
+    }
+
+    /**
+     * Sorted postings of each term as delta-encoded varints, followed by a dictionary of the terms in sorted order with
+     * their postings offsets as longs, so segments can exceed 2 GiB. Every {@link #SPARSE_INDEX_INTERVAL}th dictionary
+     * entry is kept in memory, so that a lookup takes one read of a dictionary block and one read of the postings.
+     */
+    private static class Segment {
+
+        private final Path path;
+        private final String[] sparseTerms;
+        private final long[] sparseOffsets;
+        private final long length;
+        // Positional reads, so concurrent searches do not share a file position
+        private final FileChannel channel;
+
+        private Segment(Path path, String[] sparseTerms, long[] sparseOffsets, long length) throws IOException {
+            this.path = path;
+            this.sparseTerms = sparseTerms;
+            this.sparseOffsets = sparseOffsets;
+            this.length = length;
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+
+        static Segment write(Path path, Map<String, Postings> postings) throws IOException {
+            List<String> terms = new ArrayList<>(postings.keySet());
+            terms.sort(Comparator.naturalOrder());
+            int sparseCount = (terms.size() + SPARSE_INDEX_INTERVAL - 1) / SPARSE_INDEX_INTERVAL;
+            String[] sparseTerms = new String[sparseCount];
+            long[] sparseOffsets = new long[sparseCount];
+            ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream(terms.size() * 24);
+            DataOutputStream dictionary = new DataOutputStream(dictionaryBytes);
+            byte[] encoded = new byte[64];
+            long written = 0;
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024))) {
+                for (int i = 0; i < terms.size(); i++) {
+                    String term = terms.get(i);
+                    if (i % SPARSE_INDEX_INTERVAL == 0) {
+                        sparseTerms[i / SPARSE_INDEX_INTERVAL] = term;
+                        sparseOffsets[i / SPARSE_INDEX_INTERVAL] = dictionary.size();
+                    }
+                    Postings list = postings.get(term);
+                    if (encoded.length < list.count * 10)
+                        encoded = new byte[list.count * 10];
+                    int encodedLength = 0;
+                    long previous = 0;
+                    for (int job = 0; job < list.sizes.length; job++) {
+                        for (int j = 0; j < list.sizes[job]; j++) {
+                            long posting = (long) job << 32 | list.lines[job][j];
+                            encodedLength = writeVarLong(encoded, encodedLength, posting - previous);
+                            previous = posting;
+                        }
+                    }
+                    dictionary.writeUTF(term);
+                    dictionary.writeLong(written);
+                    dictionary.writeInt(list.count);
+                    dictionary.writeInt(encodedLength);
+                    out.write(encoded, 0, encodedLength);
+                    written += encodedLength;
+                }
+                for (int i = 0; i < sparseCount; i++)
+                    sparseOffsets[i] += written;
+                dictionaryBytes.writeTo(out);
+                written += dictionaryBytes.size();
+            }
+            return new Segment(path, sparseTerms, sparseOffsets, written);
+        }
+
+        Optional<Cursor> lookup(String term) throws IOException {
+            int block = Arrays.binarySearch(sparseTerms, term);
+            if (block < 0)
+                block = -block - 2;
+            if (block < 0)
+                return Optional.empty();
+            long end = block + 1 < sparseOffsets.length ? sparseOffsets[block + 1] : length;
+            byte[] entries = new byte[(int) (end - sparseOffsets[block])];
+            read(entries, sparseOffsets[block]);
+            DataInputStream dictionary = new DataInputStream(new ByteArrayInputStream(entries));
+            while (dictionary.available() > 0) {
+                int comparison = dictionary.readUTF().compareTo(term);
+                long offset = dictionary.readLong();
+                int count = dictionary.readInt();
+                int encodedLength = dictionary.readInt();
+                if (comparison > 0)
+                    break;
+                if (comparison < 0)
+                    continue;
+                byte[] encoded = new byte[encodedLength];
+                read(encoded, offset);
+                return Optional.of(new SegmentCursor(encoded, count));
+            }
+            return Optional.empty();
+        }
+
+        // Decodes the postings as they are read
+        private static class SegmentCursor extends Cursor {
+
+            private final byte[] encoded;
+            private final int count;
+            private int read = 0;
+            private int position = 0;
+            private long previous = 0;
+
+            SegmentCursor(byte[] encoded, int count) {
+                this.encoded = encoded;
+                this.count = count;
+            }
+
+            @Override
+            long next() {
+                if (read == count)
+                    return EXHAUSTED;
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = encoded[position++];
+                    delta |= (long) (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                read++;
+                previous += delta;
+                return previous;
+            }
+        }
+
+        private void read(byte[] target, long position) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(target);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0)
+                    throw new EOFException("Log index segment " + path + " is truncated");
+            }
+        }
+
+        private static int writeVarLong(byte[] target, int position, long value) {
+            while ((value & ~0x7fL) != 0) {
+                target[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            target[position++] = (byte) value;
+            return position;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close log index segment {}", path, e);
+            }
+        }
+    }
+}
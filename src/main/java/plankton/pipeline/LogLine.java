@@ -0,0 +1,25 @@
+package plankton.pipeline;
+
+class LogLine {
+
+    Job job;
+    boolean error;
+    String text;
+    long epochMillis;
+
+    Job job() {
+        return job;
+    }
+
+    boolean isError() {
+        return error;
+    }
+
+    String text() {
+        return text;
+    }
+
+    long epochMillis() {
+        return epochMillis;
+    }
+}
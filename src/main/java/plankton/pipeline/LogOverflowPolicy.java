@@ -0,0 +1,26 @@
+package plankton.pipeline;
+
+enum LogOverflowPolicy {
+
+    BLOCK("block"),
+    DROP_OLDEST("drop-oldest"),
+    SAMPLE("sample");
+
+    private final String value;
+
+    private LogOverflowPolicy(String value) {
+        this.value = value;
+    }
+
+    static LogOverflowPolicy of(String value) {
+        for (LogOverflowPolicy policy : values())
+            if (policy.value.equalsIgnoreCase(value.trim()))
+                return policy;
+        throw new IllegalArgumentException("Unknown log overflow policy: " + value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
@@ -0,0 +1,14 @@
+package plankton.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+public abstract class LogReader implements Closeable {
+
+    public abstract long size() throws IOException;
+
+    public abstract long offsetOfLine(long line) throws IOException;
+
+    public abstract void transferTo(long start, long end, WritableByteChannel target) throws IOException;
+}
@@ -0,0 +1,29 @@
+package plankton.pipeline;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+@Getter
+public class LogSearchResult {
+
+    private final List<String> terms;
+    private final long matchingLines;
+    private final long indexedLines;
+    long elapsedMicros;
+    // Line numbers, counted from 0, of the returned matches by job
+    private final Map<String, List<Integer>> jobs = new LinkedHashMap<>();
+
+    LogSearchResult(List<String> terms, long matchingLines, long indexedLines) {
+        this.terms = terms;
+        this.matchingLines = matchingLines;
+        this.indexedLines = indexedLines;
+    }
+
+    void add(String job, int line) {
+        jobs.computeIfAbsent(job, name -> new ArrayList<>()).add(line);
+    }
+}
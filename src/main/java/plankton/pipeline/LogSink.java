@@ -0,0 +1,17 @@
+package plankton.pipeline;
+
+interface LogSink {
+
+    // The line is reused after this method returns
+    void write(LogLine line);
+
+    default void flush() {
+    }
+
+    // No more lines of the job follow
+    default void finish(Job job) {
+    }
+
+    default void close() {
+    }
+}
@@ -1,14 +1,14 @@
 package plankton.pipeline;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,10 +16,15 @@ import org.slf4j.LoggerFactory;
 import lombok.EqualsAndHashCode;
 import plankton.compose.ComposeDocument;
 import plankton.compose.DependsOnCondition;
+import plankton.executor.PlanktonExecutor;
+import plankton.jfr.SchedulerPassEvent;
+import plankton.metrics.MetricsRegistry;
 
 @EqualsAndHashCode(of = "composeDocument")
 public class Pipeline {
 
+    private static final long TASKS_END_TIMEOUT_MILLIS = 30_000;
+
     ComposeDocument composeDocument;
     ContainerRuntimeAdapter containerRuntimeAdapter;
 
@@ -27,15 +32,27 @@ public class Pipeline {
     final Map<String, Job> jobsByName = new HashMap<>();
 
     List<Set<Job>> dependencyLevels = new ArrayList<>();
-    Duration timeoutLimitForJobs;
-    final Set<Job> autoStopJobs = new HashSet<>();
-
-    private int jobsRunningLimit = 3;
-
-    private final List<Job> jobsWaitingForDependencies = new ArrayList<>();
-    private final List<Job> jobsScheduled = new ArrayList<>();
-    private final List<Job> jobsRunning = new ArrayList<>();
-    private final List<Job> jobsFinished = new ArrayList<>();
+    Optional<Duration> timeoutLimitForJobs;
+    Optional<Duration> timeoutLimitForPipeline;
+    boolean failFast;
+    boolean quiet;
+    JobDurationHistory jobDurationHistory;
+    ResourceCapacity resourceCapacity;
+    JobCache jobCache;
+    JobJournal jobJournal;
+    LogBus logBus;
+    JobLogFiles jobLogFiles;
+    LogIndex logIndex;
+    PipelineTrace trace;
+
+    private final JobScheduler scheduler = new JobScheduler(this);
+    final PipelineMetrics metrics = new PipelineMetrics(this, scheduler);
+    final JobWatchdog watchdog = new JobWatchdog(this);
+    final ImagePrefetcher imagePrefetcher = new ImagePrefetcher(this);
+    private boolean failingFast = false;
+    private Instant initialInstant = null;
+    private Instant finalInstant = null;
+    private boolean closed = false;
 
     private static final Logger logger = LoggerFactory.getLogger(Pipeline.class);
 
@@ -45,89 +62,126 @@ public class Pipeline {
 
     public void start() {
         logger.info("Pipeline started");
+        initialInstant = Instant.now();
+        timeoutLimitForPipeline.ifPresent(watchdog::watchPipeline);
         initializeQueue();
-        updateQueue();
+        imagePrefetcher.prefetch(jobs);
+        updateQueue(null);
     }
 
-    private void initializeQueue() {
-        jobs.forEach(jobsWaitingForDependencies::add);
+    private synchronized void initializeQueue() {
+        scheduler.initialize();
     }
 
-    private synchronized void updateQueue() {
-        new ArrayList<>(jobsWaitingForDependencies).forEach(job -> {
-            if (job.dependencies.isEmpty()) {
-                jobsWaitingForDependencies.remove(job);
-                jobsScheduled.add(job);
-                logger.debug("Job scheduled: {}", job);
-            }
-        });
-        while (jobsRunning.size() < jobsRunningLimit && !jobsScheduled.isEmpty()) {
-            Job job = jobsScheduled.remove(0);
-            jobsRunning.add(job);
-            job.start();
-            logger.debug("Job started: {}", job);
-        }
+    private synchronized void updateQueue(Job triggeringJob) {
+        SchedulerPassEvent event = new SchedulerPassEvent();
+        event.begin();
+        int jobsStarted = scheduler.startScheduledJobs();
+        event.commit(triggeringJob == null ? null : triggeringJob.name, jobsStarted, scheduler.jobsScheduledCount(),
+                scheduler.jobsRunningCount());
         updateStatus();
     }
 
     private void updateStatus() {
-        if (jobsFinished.size() == jobs.size()) {
-            if (jobsFinished.stream()
-                    .filter(job -> job.exitCode() != 0)
-                    .collect(Collectors.toList()).isEmpty())
-                logger.info("Pipeline completed successfully");
-            else
+        // Late notifications from canceled or timed out jobs arrive after the pipeline has finished
+        if (scheduler.isFinished() && finalInstant == null) {
+            finalInstant = Instant.now();
+            jobDurationHistory.save();
+            watchdog.shutdown();
+            if (scheduler.hasFailures())
                 logger.info("Pipeline failed");
+            else
+                logger.info("Pipeline completed successfully");
+            boolean succeeded = !scheduler.hasFailures();
+            PlanktonExecutor.controlExecutor().execute("pipeline close", () -> close(succeeded));
         }
     }
 
+    // Canceled and timed out jobs are still stopping their containers, and publishing their output, when the
+    // pipeline finishes
+    private void close(boolean succeeded) {
+        long deadline = System.currentTimeMillis() + TASKS_END_TIMEOUT_MILLIS;
+        try {
+            for (Job job : jobs) {
+                if (!job.awaitTask(Math.max(1, deadline - System.currentTimeMillis())))
+                    logger.debug("{} still running, closing the logs anyway", job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logBus.close();
+        if (succeeded)
+            jobJournal.recordRunCompleted();
+        jobJournal.close();
+        if (trace != null)
+            trace.write();
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    public MetricsRegistry metricsRegistry() {
+        return metrics.registry;
+    }
+
+    public synchronized Optional<CriticalPathReport> criticalPathReport() {
+        if (initialInstant == null)
+            return Optional.empty();
+        return Optional.of(new CriticalPathReport(jobs, initialInstant, finalInstant, resourceCapacity.containers()));
+    }
+
+    public Optional<LogSearchResult> searchLogs(String query, int limit) {
+        if (logIndex == null)
+            return Optional.empty();
+        return Optional.of(logIndex.search(query, limit));
+    }
+
+    public synchronized void waitForCompletion() throws InterruptedException {
+        while (!closed)
+            wait();
+    }
+
+    synchronized void notifyImagePrefetched() {
+        updateQueue(null);
+    }
+
     synchronized void notifyJobStarted(Job job) {
-        removeDependenciesOnJob(job, DependsOnCondition.SERVICE_STARTED);
+        scheduler.satisfyCondition(job, DependsOnCondition.SERVICE_STARTED);
+        updateQueue(job);
     }
 
     synchronized void notifyJobHealthy(Job job) {
-        removeDependenciesOnJob(job, DependsOnCondition.SERVICE_HEALTHY);
+        scheduler.satisfyCondition(job, DependsOnCondition.SERVICE_HEALTHY);
+        updateQueue(job);
     }
 
     synchronized void notifyJobFailed(Job job) {
-        if (jobsWaitingForDependencies.contains(job))
-            jobsWaitingForDependencies.remove(job);
-        else
-            jobsRunning.remove(job);
-        jobsFinished.add(job);
-        job.dependents.forEach((dependentJob, condition) -> dependentJob.block());
-        autoStopJobs();
+        scheduler.finishWithFailure(job);
+        if (failFast && !failingFast) {
+            failingFast = true;
+            logger.error("Failing fast: {} failed", job);
+            scheduler.cancelPendingJobs("Canceled by fail-fast");
+            scheduler.runningJobs().forEach(runningJob -> runningJob.cancel("Canceled by fail-fast"));
+        }
+        updateQueue(job);
     }
 
     synchronized void notifyJobCompletedSuccessfully(Job job) {
-        jobsRunning.remove(job);
-        jobsFinished.add(job);
-        removeDependenciesOnJob(job, DependsOnCondition.SERVICE_COMPLETED_SUCCESSFULLY);
-        autoStopJobs();
-    }
-
-    synchronized void removeDependenciesOnJob(Job job, DependsOnCondition satisfiedCondition) {
-        new HashMap<>(job.dependents).forEach((dependentJob, requiredCondition) -> {
-            if (satisfiedCondition == requiredCondition) {
-                dependentJob.dependencies.remove(job);
-                job.dependents.remove(dependentJob);
-                logger.debug("Dependency satisfied: {} depends on {} with status {}", dependentJob, job,
-                        satisfiedCondition);
-            }
-        });
-        updateQueue();
+        scheduler.finishSuccessfully(job);
+        updateQueue(job);
     }
 
-    private void autoStopJobs() {
-        autoStopJobs.forEach(job -> {
-
-            if (job.dependents.isEmpty()) {
-                // TODO keep in mind that the dependents are removed...
-
-                logger.debug("Auto stopping job: {}", job);
-                job.stop();
-            }
-        });
+    void notifyPipelineTimedOut() {
+        List<Job> runningJobs;
+        synchronized (this) {
+            if (scheduler.isFinished())
+                return;
+            logger.error("Pipeline timed out");
+            scheduler.cancelPendingJobs("Blocked by pipeline timeout");
+            runningJobs = scheduler.runningJobs();
+        }
+        runningJobs.forEach(Job::timeOut);
     }
 
     public void stop() {
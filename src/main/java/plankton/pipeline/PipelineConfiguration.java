@@ -1,6 +1,10 @@
 package plankton.pipeline;
 
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
 import java.util.Set;
 
 import plankton.compose.ComposeDocument;
@@ -15,5 +19,41 @@ public interface PipelineConfiguration {
 
     Set<String> skipJobs();
 
-    Duration timeoutLimitForJobs();
+    Optional<Duration> timeoutLimitForJobs();
+
+    Optional<Duration> timeoutLimitForPipeline();
+
+    boolean failFast();
+
+    Path metadataDirectory();
+
+    boolean resume();
+
+    boolean quiet();
+
+    int jobsRunningLimit();
+
+    OptionalDouble cpuCapacity();
+
+    OptionalLong memoryCapacity();
+
+    Optional<Path> cacheDirectory();
+
+    long cacheSize();
+
+    int logBufferSize();
+
+    String logOverflow();
+
+    boolean logFiles();
+
+    boolean logCompression();
+
+    boolean logIndex();
+
+    long logIndexMemory();
+
+    boolean trace();
+
+    String namespace();
 }
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import plankton.compose.ComposeDocument;
 import plankton.compose.ComposeService;
 import plankton.compose.DependsOnCondition;
+import plankton.jfr.EventContext;
 
 public class PipelineInitializer {
 
@@ -24,6 +25,7 @@ public class PipelineInitializer {
     private final Set<String> skip;
     private final Set<String> resolvedTargetNames = new HashSet<>();
     private final Set<String> resolvedSkipNames = new HashSet<>();
+    private LogOverflowPolicy logOverflowPolicy;
 
     private final Pipeline pipeline;
 
@@ -39,6 +41,36 @@ public class PipelineInitializer {
         pipeline.composeDocument = config.composeDocument();
         pipeline.containerRuntimeAdapter = config.containerRuntimeAdapter();
         pipeline.timeoutLimitForJobs = config.timeoutLimitForJobs();
+        pipeline.timeoutLimitForPipeline = config.timeoutLimitForPipeline();
+        pipeline.failFast = config.failFast();
+        pipeline.quiet = config.quiet();
+        pipeline.jobDurationHistory = new JobDurationHistory(config.metadataDirectory());
+        pipeline.jobJournal = new JobJournal(config.resume() ? config.metadataDirectory() : null);
+        pipeline.resourceCapacity = new ResourceCapacity(
+                config.jobsRunningLimit(),
+                config.cpuCapacity(),
+                config.memoryCapacity());
+        EventContext.setNamespace(config.namespace());
+        pipeline.logBus = new LogBus(config.logBufferSize());
+        if (config.logFiles()) {
+            pipeline.jobLogFiles = new JobLogFiles(
+                    config.metadataDirectory().resolve("logs").resolve(config.namespace()),
+                    config.logCompression());
+            pipeline.logBus.addSink(pipeline.jobLogFiles);
+        }
+        if (config.trace())
+            pipeline.trace = new PipelineTrace(
+                    config.metadataDirectory().resolve("traces").resolve(config.namespace() + ".json"));
+        if (config.logIndex()) {
+            pipeline.logIndex = new LogIndex(
+                    config.metadataDirectory().resolve("log-index").resolve(config.namespace()),
+                    config.logIndexMemory());
+            pipeline.logBus.addSink(pipeline.logIndex);
+        }
+        logOverflowPolicy = LogOverflowPolicy.of(config.logOverflow());
+        pipeline.jobCache = config.cacheDirectory()
+                .map(directory -> new JobCache(directory, config.cacheSize()))
+                .orElse(null);
 
         instantiateJobs();
 
@@ -54,10 +86,13 @@ public class PipelineInitializer {
         removeDependenciesOnSkippedJobs();
 
         removeAbstractAndNonElectedJobs();
+        removeDependentsOutOfPipeline();
+        pipeline.jobs.forEach(pipeline.resourceCapacity::checkCapacityFor);
 
         pipeline.jobs.forEach(this::initializeJobDependencyLevel);
         sortJobsByDependencyLevel();
         pipeline.jobs.forEach(this::initializeJobStopMode);
+        pipeline.jobs.forEach(this::initializeJobTimeout);
 
         initializeLogPrefixLength();
         initializeColorizedNamesAndLogPrefixes();
@@ -77,6 +112,9 @@ public class PipelineInitializer {
             job.pipeline = pipeline;
             job.composeService = service;
             job.name = service.name();
+            job.log = pipeline.logBus.publisher(job, service.logOverflow()
+                    .map(LogOverflowPolicy::of)
+                    .orElse(logOverflowPolicy));
             addJob(job);
         });
     }
@@ -263,6 +301,16 @@ public class PipelineInitializer {
         });
     }
 
+    private void removeDependentsOutOfPipeline() {
+        Set<Job> pipelineJobs = new HashSet<>(pipeline.jobs);
+        pipeline.jobs.forEach(job -> new HashMap<>(job.dependents).forEach((dependentJob, condition) -> {
+            if (!pipelineJobs.contains(dependentJob)) {
+                job.dependents.remove(dependentJob);
+                logger.debug("Removed dependent out of pipeline: {} -> {}", dependentJob, job);
+            }
+        }));
+    }
+
     private void addJob(Job job) {
         pipeline.jobs.add(job);
         pipeline.jobsByName.put(job.name, job);
@@ -313,10 +361,13 @@ public class PipelineInitializer {
                 || requiredConditions.contains(DependsOnCondition.SERVICE_HEALTHY))
                 && !requiredConditions.contains(DependsOnCondition.SERVICE_COMPLETED_SUCCESSFULLY)) {
             job.autoStopWhenDirectDependentsHaveFinalStatus = true;
-            pipeline.autoStopJobs.add(job);
         }
     }
 
+    private void initializeJobTimeout(Job job) {
+        job.timeout = job.composeService.timeout().or(() -> pipeline.timeoutLimitForJobs).orElse(null);
+    }
+
     private void initializeLogPrefixLength() {
         Set<String> ns = new HashSet<>();
         pipeline.jobs.forEach(job -> {
@@ -0,0 +1,60 @@
+package plankton.pipeline;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import plankton.metrics.Counter;
+import plankton.metrics.Histogram;
+import plankton.metrics.MetricsRegistry;
+
+class PipelineMetrics {
+
+    private static final double[] PHASE_SECONDS_BUCKETS = {
+            0.1, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300, 600, 1800, 3600 };
+
+    final MetricsRegistry registry = new MetricsRegistry();
+
+    private final Map<JobStatus, Histogram> phaseSeconds = new EnumMap<>(JobStatus.class);
+    private final Map<JobStatus, Counter> failures = new EnumMap<>(JobStatus.class);
+    private final Counter blocks;
+    final Counter autoStops;
+
+    PipelineMetrics(Pipeline pipeline, JobScheduler scheduler) {
+        registry.gauge("plankton_jobs", "Jobs by scheduler state", scheduler::jobsWaitingCount, "state", "waiting");
+        registry.gauge("plankton_jobs", "Jobs by scheduler state", scheduler::jobsScheduledCount, "state", "scheduled");
+        registry.gauge("plankton_jobs", "Jobs by scheduler state", scheduler::jobsRunningCount, "state", "running");
+        registry.gauge("plankton_jobs", "Jobs by scheduler state", scheduler::jobsFinishedCount, "state", "finished");
+        registry.gauge("plankton_slots_used", "Resources held by running jobs",
+                () -> pipeline.resourceCapacity == null ? 0 : pipeline.resourceCapacity.containersInUse(),
+                "resource", "containers");
+        registry.gauge("plankton_slots_used", "Resources held by running jobs",
+                () -> pipeline.resourceCapacity == null ? 0 : pipeline.resourceCapacity.cpusInUse(),
+                "resource", "cpus");
+        registry.gauge("plankton_slots_used", "Resources held by running jobs",
+                () -> pipeline.resourceCapacity == null ? 0 : pipeline.resourceCapacity.memoryInUse(),
+                "resource", "memory");
+        registry.gauge("plankton_slots_limit", "Resources available to running jobs",
+                () -> pipeline.resourceCapacity == null ? 0 : pipeline.resourceCapacity.containers(),
+                "resource", "containers");
+        for (JobStatus phase : new JobStatus[] { JobStatus.PULLING, JobStatus.BUILDING, JobStatus.RUNNING })
+            phaseSeconds.put(phase, registry.histogram("plankton_job_phase_seconds", "Time spent by jobs in a phase",
+                    PHASE_SECONDS_BUCKETS, "phase", phase.name().toLowerCase()));
+        for (JobStatus status : new JobStatus[] { JobStatus.ERROR, JobStatus.TIMED_OUT, JobStatus.CANCELED,
+                JobStatus.EXITED_NON_ZERO })
+            failures.put(status, registry.counter("plankton_job_failures_total", "Jobs that failed, by final status",
+                    "status", status.name().toLowerCase()));
+        blocks = registry.counter("plankton_job_blocks_total", "Jobs blocked by failed dependencies or fail-fast");
+        autoStops = registry.counter("plankton_job_auto_stops_total",
+                "Jobs stopped because their direct dependents finished");
+    }
+
+    void statusChanged(JobStatus previousStatus, JobStatus newStatus, long nanosInPreviousStatus) {
+        Histogram histogram = phaseSeconds.get(previousStatus);
+        if (histogram != null)
+            histogram.observe((double) nanosInPreviousStatus / TimeUnit.SECONDS.toNanos(1));
+        Counter counter = newStatus.isBlocked() ? blocks : failures.get(newStatus);
+        if (counter != null)
+            counter.increment();
+    }
+}
@@ -0,0 +1,109 @@
+package plankton.pipeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Timeline of a pipeline run in the Chrome trace-event format, with one track per slot of the running jobs limit.
+ * Open it with chrome://tracing or https://ui.perfetto.dev.
+ */
+class PipelineTrace {
+
+    private static final int PROCESS_ID = 1;
+    private static final int DEPENDENCIES_TRACK = 0;
+
+    private final Path path;
+    private final long startNanos = System.nanoTime();
+    private final List<Map<String, Object>> events = new ArrayList<>();
+    private final BitSet slotsInUse = new BitSet();
+    private int slots = 0;
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineTrace.class);
+
+    PipelineTrace(Path path) {
+        this.path = path;
+    }
+
+    synchronized int acquireSlot() {
+        int slot = slotsInUse.nextClearBit(0);
+        slotsInUse.set(slot);
+        slots = Math.max(slots, slot + 1);
+        return slot;
+    }
+
+    synchronized void releaseSlot(int slot) {
+        if (slot >= 0)
+            slotsInUse.clear(slot);
+    }
+
+    synchronized void span(Job job, String name, long beginNanos, long endNanos) {
+        Map<String, Object> event = event(name, "X", trackOf(job), beginNanos);
+        event.put("dur", Math.max(0, (endNanos - beginNanos) / 1000));
+        event.put("args", Map.of("job", job.name));
+        events.add(event);
+    }
+
+    synchronized void dependencySatisfied(Job dependency, Job dependent, String condition) {
+        Map<String, Object> event = event(dependency.name + " -> " + dependent.name, "i", DEPENDENCIES_TRACK,
+                System.nanoTime());
+        event.put("s", "t");
+        event.put("args", Map.of("dependency", dependency.name, "dependent", dependent.name, "condition", condition));
+        events.add(event);
+    }
+
+    private static int trackOf(Job job) {
+        return job.slot < 0 ? DEPENDENCIES_TRACK : job.slot + 1;
+    }
+
+    private Map<String, Object> event(String name, String phase, int track, long nanos) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", name);
+        event.put("ph", phase);
+        event.put("pid", PROCESS_ID);
+        event.put("tid", track);
+        event.put("ts", Math.max(0, (nanos - startNanos) / 1000));
+        return event;
+    }
+
+    private static Map<String, Object> trackName(int track, String name) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("name", "thread_name");
+        event.put("ph", "M");
+        event.put("pid", PROCESS_ID);
+        event.put("tid", track);
+        event.put("args", Map.of("name", name));
+        return event;
+    }
+
+    synchronized void write() {
+        List<Map<String, Object>> traceEvents = new ArrayList<>();
+        traceEvents.add(trackName(DEPENDENCIES_TRACK, "dependencies"));
+        for (int slot = 0; slot < slots; slot++)
+            traceEvents.add(trackName(slot + 1, "slot " + (slot + 1)));
+        traceEvents.addAll(events);
+        Map<String, Object> trace = new LinkedHashMap<>();
+        trace.put("traceEvents", traceEvents);
+        trace.put("displayTimeUnit", "ms");
+        try {
+            Files.createDirectories(path.getParent());
+            try (OutputStream out = Files.newOutputStream(path)) {
+                new ObjectMapper().writeValue(out, trace);
+            }
+            logger.info("Pipeline trace written to {}", path);
+        } catch (IOException e) {
+            logger.warn("Unable to write pipeline trace {}", path, e);
+        }
+    }
+}
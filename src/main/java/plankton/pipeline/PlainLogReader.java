@@ -0,0 +1,52 @@
+package plankton.pipeline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class PlainLogReader extends LogReader {
+
+    private final FileChannel channel;
+
+    PlainLogReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public long offsetOfLine(long line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long lines = 0;
+        long position = 0;
+        while (lines < line) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0)
+                return position;
+            for (int i = 0; i < read && lines < line; i++) {
+                position++;
+                if (buffer.get(i) == '\n')
+                    lines++;
+            }
+        }
+        return position;
+    }
+
+    @Override
+    public void transferTo(long start, long end, WritableByteChannel target) throws IOException {
+        for (long position = start, transferred = 1; position < end && transferred > 0; position += transferred)
+            transferred = channel.transferTo(position, end - position, target);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
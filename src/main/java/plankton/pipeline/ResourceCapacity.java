@@ -0,0 +1,87 @@
+package plankton.pipeline;
+
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+class ResourceCapacity {
+
+    private final int containers;
+    private final OptionalDouble cpus;
+    private final OptionalLong memory;
+
+    private int containersInUse = 0;
+    private double cpusInUse = 0;
+    private long memoryInUse = 0;
+
+    ResourceCapacity(int containers, OptionalDouble cpus, OptionalLong memory) {
+        this.containers = containers;
+        this.cpus = cpus;
+        this.memory = memory;
+    }
+
+    boolean isFull() {
+        return containersInUse >= containers
+                || (cpus.isPresent() && cpusInUse >= cpus.getAsDouble())
+                || (memory.isPresent() && memoryInUse >= memory.getAsLong());
+    }
+
+    // A job bigger than the whole capacity would never start
+    void checkCapacityFor(Job job) {
+        if (cpus.isPresent() && cpusOf(job) > cpus.getAsDouble())
+            throw new JobExceedsCapacityException(
+                    job + " needs " + cpusOf(job) + " CPUs, more than the capacity of " + cpus.getAsDouble());
+        if (memory.isPresent() && memoryOf(job) > memory.getAsLong())
+            throw new JobExceedsCapacityException(
+                    job + " needs " + memoryOf(job) + " bytes of memory, more than the capacity of "
+                            + memory.getAsLong());
+    }
+
+    boolean fits(Job job) {
+        return containersInUse < containers
+                && (cpus.isEmpty() || cpusInUse + cpusOf(job) <= cpus.getAsDouble())
+                && (memory.isEmpty() || memoryInUse + memoryOf(job) <= memory.getAsLong());
+    }
+
+    void acquire(Job job) {
+        containersInUse++;
+        cpusInUse += cpusOf(job);
+        memoryInUse += memoryOf(job);
+    }
+
+    void release(Job job) {
+        containersInUse--;
+        cpusInUse -= cpusOf(job);
+        memoryInUse -= memoryOf(job);
+    }
+
+    int containers() {
+        return containers;
+    }
+
+    int containersInUse() {
+        return containersInUse;
+    }
+
+    double cpusInUse() {
+        return cpusInUse;
+    }
+
+    long memoryInUse() {
+        return memoryInUse;
+    }
+
+    private static double cpusOf(Job job) {
+        return job.composeService.cpus().orElse(0.0);
+    }
+
+    private static long memoryOf(Job job) {
+        return job.composeService.memLimit().orElse(0L);
+    }
+
+    @Override
+    public String toString() {
+        return "containers=" + containersInUse + "/" + containers
+                + ", cpus=" + cpusInUse + "/" + (cpus.isPresent() ? String.valueOf(cpus.getAsDouble()) : "-")
+                + ", memory=" + memoryInUse + "/" + (memory.isPresent() ? String.valueOf(memory.getAsLong()) : "-");
+    }
+}
@@ -29,11 +29,15 @@ public class JobDto {
             case RUNNING:
                 return "running";
             case BLOCKED:
+            case CANCELED:
                 return "blocked";
             case BUILT:
+            case CACHED:
+            case SKIPPED:
             case EXITED_ZERO:
                 return "succeeded";
             case ERROR:
+            case TIMED_OUT:
             case EXITED_NON_ZERO:
                 return "failed";
             default:
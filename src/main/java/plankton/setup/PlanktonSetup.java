@@ -30,6 +30,104 @@ public class PlanktonSetup {
     @Setter
     private String skip;
 
+    @Getter
+    @Setter
+    private String jobTimeout;
+
+    @Getter
+    @Setter
+    private String pipelineTimeout;
+
+    @Getter
+    @Setter
+    private boolean failFast;
+
+    @Getter
+    @Setter
+    private boolean resume;
+
+    @Getter
+    @Setter
+    private boolean quiet;
+
+    @Getter
+    @Setter
+    private int simultaneousContainers;
+
+    @Getter
+    @Setter
+    private String cpus;
+
+    @Getter
+    @Setter
+    private String memory;
+
+    @Getter
+    @Setter
+    private int executorThreads;
+
+    @Getter
+    @Setter
+    private boolean virtualThreads;
+
+    @Getter
+    @Setter
+    private int pullThreads;
+
+    @Getter
+    @Setter
+    private int shellPool;
+
+    @Getter
+    @Setter
+    private boolean cache;
+
+    @Getter
+    @Setter
+    private String cacheDir;
+
+    @Getter
+    @Setter
+    private String cacheSize;
+
+    @Getter
+    @Setter
+    private int logBuffer;
+
+    @Getter
+    @Setter
+    private String logOverflow;
+
+    @Getter
+    @Setter
+    private boolean logFiles;
+
+    @Getter
+    @Setter
+    private boolean logCompression;
+
+    @Getter
+    @Setter
+    private boolean logIndex;
+
+    @Getter
+    @Setter
+    private String logIndexMemory;
+
+    @Getter
+    @Setter
+    private boolean dockerLatencySamples;
+
+    @Getter
+    @Setter
+    private boolean jfrRecording;
+
+    @Getter
+    @Setter
+    private boolean trace;
+
+    private PlanktonSetupExecutor executor;
+    private PlanktonSetupRecording recording;
     private PlanktonSetupNamespace namespace;
     private PlanktonSetupDockerHost dockerHost;
     private PlanktonSetupRunningFrom runningFrom;
@@ -43,6 +141,7 @@ public class PlanktonSetup {
     }
 
     public void setup() {
+        executor = new PlanktonSetupExecutor(this);
         namespace = new PlanktonSetupNamespace();
         dockerHost = new PlanktonSetupDockerHost(this);
         runningFrom = new PlanktonSetupRunningFrom();
@@ -52,14 +151,16 @@ public class PlanktonSetup {
                 runningFrom,
                 sandboxMode,
                 dockerHost);
+        recording = new PlanktonSetupRecording(this, paths);
         dockerAdapter = new PlanktonSetupDockerAdapter(
+                this,
                 namespace,
                 sandboxMode,
                 dockerHost,
                 paths,
                 runningFrom);
         composeDocument = new PlanktonSetupComposeDocument(paths);
-        setupPipeline = new PlanktonSetupPipeline(this, dockerAdapter, composeDocument);
+        setupPipeline = new PlanktonSetupPipeline(this, namespace, paths, dockerAdapter, composeDocument);
     }
 
     public Pipeline getPipeline() {
@@ -1,8 +1,12 @@
 package plankton.setup;
 
+import java.nio.file.Paths;
+import java.util.Optional;
+
 import lombok.Getter;
 import plankton.docker.adapter.DockerAdapter;
 import plankton.docker.adapter.DockerAdapterConfiguration;
+import plankton.docker.client.DockerCommandProfiler;
 import plankton.docker.daemon.DockerDaemon;
 import plankton.docker.daemon.DockerSandboxConfiguration;
 import plankton.docker.daemon.DockerSandboxDaemon;
@@ -15,12 +19,18 @@ public class PlanktonSetupDockerAdapter {
     private final DockerAdapter dockerAdapter;
 
     public PlanktonSetupDockerAdapter(
+            PlanktonSetup setup,
             PlanktonSetupNamespace namespace,
             PlanktonSetupSandboxMode sandboxMode,
             PlanktonSetupDockerHost dockerHost,
             PlanktonSetupPaths paths,
             PlanktonSetupRunningFrom runningFrom) {
 
+        DockerCommandProfiler.shared().setSamplesFile(setup.isDockerLatencySamples()
+                ? Optional.of(Paths.get(paths.getWorkspacePathFromPlanktonPerspective(), ".plankton",
+                        "docker-latency.csv"))
+                : Optional.empty());
+
         if (sandboxMode.isSandboxEnabled()) {
             dockerAdapterDaemon = new DockerSandboxDaemon(new DockerSandboxConfiguration() {
 
@@ -0,0 +1,18 @@
+package plankton.setup;
+
+import plankton.bash.BashScript;
+import plankton.bash.ShellPool;
+import plankton.executor.PlanktonExecutor;
+
+public class PlanktonSetupExecutor {
+
+    public PlanktonSetupExecutor(PlanktonSetup setup) {
+        int maxThreads = Math.max(1, setup.getExecutorThreads());
+        boolean virtualThreads = setup.isVirtualThreads();
+        PlanktonExecutor.setJobExecutor(PlanktonExecutor.create("jobs", maxThreads, virtualThreads));
+        PlanktonExecutor.setStreamExecutor(PlanktonExecutor.create("streams", maxThreads, virtualThreads));
+        PlanktonExecutor.setPullExecutor(PlanktonExecutor.create("pulls", Math.max(1, setup.getPullThreads()), false));
+        PlanktonExecutor.setControlExecutor(PlanktonExecutor.createUnbounded("control", virtualThreads));
+        BashScript.setShellPool(setup.getShellPool() > 0 ? new ShellPool(setup.getShellPool()) : null);
+    }
+}
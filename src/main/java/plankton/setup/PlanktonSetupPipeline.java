@@ -1,15 +1,21 @@
 package plankton.setup;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
 import java.util.Set;
 
 import lombok.Getter;
 import plankton.compose.ComposeDocument;
+import plankton.compose.serviceprops.MemLimit;
+import plankton.compose.serviceprops.Timeout;
 import plankton.pipeline.ContainerRuntimeAdapter;
 import plankton.pipeline.Pipeline;
 import plankton.pipeline.PipelineConfiguration;
@@ -22,6 +28,8 @@ public class PlanktonSetupPipeline {
 
     public PlanktonSetupPipeline(
             PlanktonSetup setup,
+            PlanktonSetupNamespace namespace,
+            PlanktonSetupPaths paths,
             PlanktonSetupDockerAdapter dockerAdapter,
             PlanktonSetupComposeDocument composeDocument) {
 
@@ -43,21 +51,131 @@ public class PlanktonSetupPipeline {
             }
 
             @Override
-            public Duration timeoutLimitForJobs() {
-                return Duration.of(10L, ChronoUnit.MINUTES);
+            public Optional<Duration> timeoutLimitForJobs() {
+                return isBlank(setup.getJobTimeout())
+                        ? Optional.empty()
+                        : Optional.of(Timeout.durationOf(setup.getJobTimeout()));
+            }
+
+            @Override
+            public Optional<Duration> timeoutLimitForPipeline() {
+                return isBlank(setup.getPipelineTimeout())
+                        ? Optional.empty()
+                        : Optional.of(Timeout.durationOf(setup.getPipelineTimeout()));
             }
 
             @Override
             public Set<String> skipJobs() {
                 return new HashSet<>(split(setup.getSkip()));
             }
+
+            @Override
+            public Path metadataDirectory() {
+                return Paths.get(paths.getWorkspacePathFromPlanktonPerspective(), ".plankton");
+            }
+
+            @Override
+            public boolean resume() {
+                return setup.isResume();
+            }
+
+            @Override
+            public boolean quiet() {
+                return setup.isQuiet();
+            }
+
+            @Override
+            public boolean failFast() {
+                return setup.isFailFast();
+            }
+
+            @Override
+            public int jobsRunningLimit() {
+                return Math.max(1, setup.getSimultaneousContainers());
+            }
+
+            @Override
+            public OptionalDouble cpuCapacity() {
+                return isBlank(setup.getCpus())
+                        ? OptionalDouble.empty()
+                        : OptionalDouble.of(Double.parseDouble(setup.getCpus().trim()));
+            }
+
+            @Override
+            public OptionalLong memoryCapacity() {
+                return isBlank(setup.getMemory())
+                        ? OptionalLong.empty()
+                        : OptionalLong.of(MemLimit.bytesOf(setup.getMemory()));
+            }
+
+            @Override
+            public Optional<Path> cacheDirectory() {
+                if (!setup.isCache())
+                    return Optional.empty();
+                return isBlank(setup.getCacheDir())
+                        ? Optional.of(metadataDirectory().resolve("cache"))
+                        : Optional.of(Paths.get(setup.getCacheDir()));
+            }
+
+            @Override
+            public long cacheSize() {
+                return isBlank(setup.getCacheSize())
+                        ? Long.MAX_VALUE
+                        : MemLimit.bytesOf(setup.getCacheSize());
+            }
+
+            @Override
+            public int logBufferSize() {
+                return setup.getLogBuffer();
+            }
+
+            @Override
+            public String logOverflow() {
+                return setup.getLogOverflow();
+            }
+
+            @Override
+            public boolean logFiles() {
+                return setup.isLogFiles();
+            }
+
+            @Override
+            public boolean logCompression() {
+                return setup.isLogCompression();
+            }
+
+            @Override
+            public boolean logIndex() {
+                return setup.isLogIndex();
+            }
+
+            @Override
+            public long logIndexMemory() {
+                return isBlank(setup.getLogIndexMemory())
+                        ? Long.MAX_VALUE
+                        : MemLimit.bytesOf(setup.getLogIndexMemory());
+            }
+
+            @Override
+            public boolean trace() {
+                return setup.isTrace();
+            }
+
+            @Override
+            public String namespace() {
+                return namespace.getNamespace();
+            }
         };
         PipelineInitializer pipelineInitializer = new PipelineInitializer(pipelineConfiguration);
         pipeline = pipelineInitializer.pipeline();
     }
 
+    private boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
     private List<String> split(String s) {
-        return (s == null || s.isBlank())
+        return isBlank(s)
                 ? new ArrayList<>()
                 : Arrays.asList(s.split(","));
     }
@@ -0,0 +1,14 @@
+package plankton.setup;
+
+import java.nio.file.Paths;
+
+import plankton.jfr.PipelineRecording;
+
+public class PlanktonSetupRecording {
+
+    public PlanktonSetupRecording(PlanktonSetup setup, PlanktonSetupPaths paths) {
+        if (setup.isJfrRecording())
+            PipelineRecording.start(Paths.get(paths.getWorkspacePathFromPlanktonPerspective(), ".plankton",
+                    "plankton.jfr"));
+    }
+}
@@ -1,10 +1,30 @@
 package plankton.spring;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import plankton.docker.client.DockerCommandLatency;
+import plankton.docker.client.DockerCommandProfiler;
+import plankton.executor.PlanktonExecutor;
+import plankton.executor.dto.ExecutorDto;
+import plankton.pipeline.CriticalPathReport;
+import plankton.pipeline.Job;
+import plankton.pipeline.LogReader;
+import plankton.pipeline.LogSearchResult;
 import plankton.pipeline.Pipeline;
 import plankton.pipeline.dto.PipelineDto;
 import plankton.setup.PlanktonSetup;
@@ -21,4 +41,83 @@ public class PlanktonApi {
         Pipeline pipeline = planktonSetup.getPipeline();
         return new PipelineDto(pipeline);
     }
+
+    @GetMapping("/pipeline/jobs/{name}/logs")
+    public List<String> jobLogs(@PathVariable String name) {
+        return jobByName(name).logs();
+    }
+
+    @GetMapping("/pipeline/jobs/{name}/log-file")
+    @CrossOrigin(origins = "*", exposedHeaders = { "X-Log-Offset", "X-Log-Next-Offset", "X-Log-Size" })
+    public void jobLogFile(@PathVariable String name,
+            @RequestParam(required = false) Long offset,
+            @RequestParam(required = false) Long length,
+            @RequestParam(required = false) Long tail,
+            @RequestParam(required = false) Long line,
+            HttpServletResponse response) throws IOException {
+        requireNonNegative("offset", offset);
+        requireNonNegative("length", length);
+        requireNonNegative("tail", tail);
+        requireNonNegative("line", line);
+        LogReader reader = jobByName(name).openLog()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No log file for job: " + name));
+        try (reader) {
+            long size = reader.size();
+            long start = tail != null
+                    ? Math.max(0, size - tail)
+                    : line != null
+                            ? reader.offsetOfLine(line)
+                            : Math.min(size, offset == null ? 0 : offset);
+            long end = length == null || length > size - start ? size : start + length;
+            response.setContentType("text/plain;charset=UTF-8");
+            response.setHeader("X-Log-Offset", String.valueOf(start));
+            response.setHeader("X-Log-Next-Offset", String.valueOf(end));
+            response.setHeader("X-Log-Size", String.valueOf(size));
+            response.setContentLengthLong(end - start);
+            reader.transferTo(start, end, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    private static void requireNonNegative(String parameter, Long value) {
+        if (value != null && value < 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, parameter + " must not be negative: " + value);
+    }
+
+    @GetMapping("/pipeline/logs/search")
+    public LogSearchResult searchLogs(@RequestParam String query,
+            @RequestParam(defaultValue = "100") int limit) {
+        return planktonSetup.getPipeline().searchLogs(query, limit)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Log index is disabled"));
+    }
+
+    @GetMapping("/pipeline/critical-path")
+    public CriticalPathReport criticalPath() {
+        return planktonSetup.getPipeline().criticalPathReport()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Pipeline not started"));
+    }
+
+    @GetMapping(value = "/metrics", produces = "text/plain;version=0.0.4;charset=utf-8")
+    public String metrics() {
+        return planktonSetup.getPipeline().metricsRegistry().scrape();
+    }
+
+    @GetMapping("/docker/latency")
+    public List<DockerCommandLatency> dockerLatency() {
+        return DockerCommandProfiler.shared().summary();
+    }
+
+    private Job jobByName(String name) {
+        Job job = planktonSetup.getPipeline().getJobByName(name);
+        if (job == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job: " + name);
+        return job;
+    }
+
+    @GetMapping("/executors")
+    public List<ExecutorDto> executors() {
+        return Arrays.asList(PlanktonExecutor.jobExecutor(), PlanktonExecutor.streamExecutor(),
+                PlanktonExecutor.pullExecutor(), PlanktonExecutor.controlExecutor()).stream()
+                .map(ExecutorDto::new)
+                .collect(Collectors.toList());
+    }
 }
@@ -26,4 +26,76 @@ public class PlanktonConfiguration {
 
     @Value("${skip}")
     private String skip;
+
+    @Value("${job-timeout}")
+    private String jobTimeout;
+
+    @Value("${pipeline-timeout}")
+    private String pipelineTimeout;
+
+    @Value("${fail-fast}")
+    private boolean failFast;
+
+    @Value("${resume}")
+    private boolean resume;
+
+    @Value("${quiet}")
+    private boolean quiet;
+
+    @Value("${simultaneous-containers}")
+    private int simultaneousContainers;
+
+    @Value("${cpus}")
+    private String cpus;
+
+    @Value("${memory}")
+    private String memory;
+
+    @Value("${executor-threads}")
+    private int executorThreads;
+
+    @Value("${virtual-threads}")
+    private boolean virtualThreads;
+
+    @Value("${pull-threads}")
+    private int pullThreads;
+
+    @Value("${shell-pool}")
+    private int shellPool;
+
+    @Value("${cache}")
+    private boolean cache;
+
+    @Value("${cache-dir}")
+    private String cacheDir;
+
+    @Value("${cache-size}")
+    private String cacheSize;
+
+    @Value("${log-buffer}")
+    private int logBuffer;
+
+    @Value("${log-overflow}")
+    private String logOverflow;
+
+    @Value("${log-files}")
+    private boolean logFiles;
+
+    @Value("${log-compression}")
+    private boolean logCompression;
+
+    @Value("${log-index}")
+    private boolean logIndex;
+
+    @Value("${log-index-memory}")
+    private String logIndexMemory;
+
+    @Value("${docker-latency-samples}")
+    private boolean dockerLatencySamples;
+
+    @Value("${jfr-recording}")
+    private boolean jfrRecording;
+
+    @Value("${trace}")
+    private boolean trace;
 }
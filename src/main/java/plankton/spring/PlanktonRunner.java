@@ -1,9 +1,13 @@
 package plankton.spring;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import plankton.docker.client.DockerCommandProfiler;
+import plankton.jfr.PipelineRecording;
 import plankton.pipeline.Pipeline;
 import plankton.setup.PlanktonSetup;
 
@@ -13,9 +17,18 @@ public class PlanktonRunner implements CommandLineRunner {
 	@Autowired
 	private PlanktonSetup planktonSetup;
 
+	private static final Logger logger = LoggerFactory.getLogger(PlanktonRunner.class);
+
 	@Override
 	public void run(String... args) throws Exception {
 		Pipeline pipeline = planktonSetup.getPipeline();
 		pipeline.start();
+		pipeline.waitForCompletion();
+		pipeline.criticalPathReport().ifPresent(report -> logger.info("{}", report.report()));
+		DockerCommandProfiler profiler = DockerCommandProfiler.shared();
+		if (!profiler.summary().isEmpty())
+			logger.info("Docker command latency:\n{}", profiler.report());
+		profiler.writeSamples();
+		PipelineRecording.stop();
 	}
 }
@@ -21,6 +21,30 @@ public class PlanktonSetupBean {
         planktonSetup.setSkip(planktonConfiguration.getSkip());
         planktonSetup.setTarget(planktonConfiguration.getTarget());
         planktonSetup.setWorkspace(planktonConfiguration.getWorkspace());
+        planktonSetup.setJobTimeout(planktonConfiguration.getJobTimeout());
+        planktonSetup.setPipelineTimeout(planktonConfiguration.getPipelineTimeout());
+        planktonSetup.setFailFast(planktonConfiguration.isFailFast());
+        planktonSetup.setResume(planktonConfiguration.isResume());
+        planktonSetup.setQuiet(planktonConfiguration.isQuiet());
+        planktonSetup.setSimultaneousContainers(planktonConfiguration.getSimultaneousContainers());
+        planktonSetup.setCpus(planktonConfiguration.getCpus());
+        planktonSetup.setMemory(planktonConfiguration.getMemory());
+        planktonSetup.setExecutorThreads(planktonConfiguration.getExecutorThreads());
+        planktonSetup.setVirtualThreads(planktonConfiguration.isVirtualThreads());
+        planktonSetup.setPullThreads(planktonConfiguration.getPullThreads());
+        planktonSetup.setShellPool(planktonConfiguration.getShellPool());
+        planktonSetup.setCache(planktonConfiguration.isCache());
+        planktonSetup.setCacheDir(planktonConfiguration.getCacheDir());
+        planktonSetup.setCacheSize(planktonConfiguration.getCacheSize());
+        planktonSetup.setLogBuffer(planktonConfiguration.getLogBuffer());
+        planktonSetup.setLogOverflow(planktonConfiguration.getLogOverflow());
+        planktonSetup.setLogFiles(planktonConfiguration.isLogFiles());
+        planktonSetup.setLogCompression(planktonConfiguration.isLogCompression());
+        planktonSetup.setLogIndex(planktonConfiguration.isLogIndex());
+        planktonSetup.setLogIndexMemory(planktonConfiguration.getLogIndexMemory());
+        planktonSetup.setDockerLatencySamples(planktonConfiguration.isDockerLatencySamples());
+        planktonSetup.setJfrRecording(planktonConfiguration.isJfrRecording());
+        planktonSetup.setTrace(planktonConfiguration.isTrace());
         planktonSetup.setup();
         return planktonSetup;
     }
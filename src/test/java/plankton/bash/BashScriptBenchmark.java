@@ -0,0 +1,80 @@
+package plankton.bash;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Per-invocation latency of {@link BashScript} compared with the previous execution path, which wrote every
+ * script to a temp file and ran it with bash, and with a {@link ShellPool}. Run with:
+ * {@code java -cp <test and main classpath> plankton.bash.BashScriptBenchmark [iterations]}
+ */
+public class BashScriptBenchmark {
+
+    private static final List<String> SIMPLE_COMMAND = List.of("true --format '{{json .}}'");
+    private static final List<String> SHELL_COMMANDS = List.of("true && echo ok | cat > /dev/null");
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        for (List<String> commands : List.of(SIMPLE_COMMAND, SHELL_COMMANDS)) {
+            measure("temp file + bash", commands, iterations / 5, BashScriptBenchmark::runWithTempFile);
+            measure("BashScript", commands, iterations / 5, BashScriptBenchmark::runWithBashScript);
+            double before = measure("temp file + bash", commands, iterations, BashScriptBenchmark::runWithTempFile);
+            double after = measure("BashScript", commands, iterations, BashScriptBenchmark::runWithBashScript);
+            System.out.printf("%-45s before: %8.1f us/op  after: %8.1f us/op  (%.1fx)%n", commands, before, after,
+                    before / after);
+        }
+        BashScript.setShellPool(new ShellPool(1));
+        measure("BashScript", SHELL_COMMANDS, iterations / 5, BashScriptBenchmark::runWithBashScript);
+        double pooled = measure("BashScript", SHELL_COMMANDS, iterations, BashScriptBenchmark::runWithBashScript);
+        BashScript.setShellPool(null);
+        System.out.printf("%-45s with shell-pool=1: %8.1f us/op%n", SHELL_COMMANDS, pooled);
+    }
+
+    private interface Invocation {
+        void run(List<String> commands) throws Exception;
+    }
+
+    private static double measure(String name, List<String> commands, int iterations, Invocation invocation)
+            throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            invocation.run(commands);
+        return (System.nanoTime() - start) / 1000.0 / iterations;
+    }
+
+    private static void runWithBashScript(List<String> commands) throws BashScriptFailedException {
+        new BashScript().commands(commands).forEachOutputAndError(line -> {
+            /* discard */
+        }).run();
+    }
+
+    private static void runWithTempFile(List<String> commands) throws IOException, InterruptedException {
+        File script = File.createTempFile(BashScriptBenchmark.class.getSimpleName(), ".sh");
+        try {
+            Files.writeString(script.toPath(), "#!/bin/bash\nset -e\n" + String.join("\n", commands) + "\n");
+            Process process = new ProcessBuilder("bash", script.toString()).redirectErrorStream(true).start();
+            process.getInputStream().transferTo(OutputStreamSink.INSTANCE);
+            if (process.waitFor() != 0)
+                throw new IllegalStateException("Exit code: " + process.exitValue());
+        } finally {
+            script.delete();
+        }
+    }
+
+    private static class OutputStreamSink extends java.io.OutputStream {
+
+        static final OutputStreamSink INSTANCE = new OutputStreamSink();
+
+        @Override
+        public void write(int b) {
+            /* discard */
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            /* discard */
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package plankton.bash;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class ShellWordsTest {
+
+    @Test
+    void splitsOnBlanks() {
+        assertEquals(Optional.of(List.of("docker", "ps", "-a")), ShellWords.split("docker ps -a"));
+        assertEquals(Optional.of(List.of("docker", "ps")), ShellWords.split("  docker \t ps  "));
+    }
+
+    @Test
+    void unquotesWords() {
+        assertEquals(Optional.of(List.of("echo", "a b", "c d")), ShellWords.split("echo 'a b' \"c d\""));
+        assertEquals(Optional.of(List.of("echo", "a$b")), ShellWords.split("echo 'a$b'"));
+        assertEquals(Optional.of(List.of("echo", "prefix-quoted")), ShellWords.split("echo prefix-'quoted'"));
+        assertEquals(Optional.of(List.of("echo", "")), ShellWords.split("echo ''"));
+    }
+
+    @Test
+    void removesBackslashes() {
+        assertEquals(Optional.of(List.of("echo", "a b", "$x")), ShellWords.split("echo a\\ b \\$x"));
+        assertEquals(Optional.of(List.of("echo", "a\"b", "a\\b")), ShellWords.split("echo \"a\\\"b\" \"a\\b\""));
+        assertEquals(Optional.of(List.of("echo", "a\\b")), ShellWords.split("echo 'a\\b'"));
+    }
+
+    @Test
+    void keepsAssignmentsInArguments() {
+        assertEquals(Optional.of(List.of("docker", "run", "-e", "A=1")), ShellWords.split("docker run -e A=1"));
+    }
+
+    @Test
+    void rejectsShellConstructs() {
+        assertTrue(ShellWords.split("ls | wc -l").isEmpty());
+        assertTrue(ShellWords.split("ls > out").isEmpty());
+        assertTrue(ShellWords.split("a && b").isEmpty());
+        assertTrue(ShellWords.split("echo $HOME").isEmpty());
+        assertTrue(ShellWords.split("echo \"$HOME\"").isEmpty());
+        assertTrue(ShellWords.split("echo `date`").isEmpty());
+        assertTrue(ShellWords.split("ls *.java").isEmpty());
+        assertTrue(ShellWords.split("echo a # comment").isEmpty());
+        assertTrue(ShellWords.split("a\nb").isEmpty());
+    }
+
+    @Test
+    void rejectsLeadingAssignments() {
+        assertTrue(ShellWords.split("A=1 env").isEmpty());
+    }
+
+    @Test
+    void rejectsUnterminatedQuotes() {
+        assertTrue(ShellWords.split("echo 'a").isEmpty());
+        assertTrue(ShellWords.split("echo \"a").isEmpty());
+    }
+
+    @Test
+    void expandsVariables() {
+        Map<String, String> variables = Map.of("A", "1", "B", "x y", "EMPTY", "");
+
+        assertEquals(Optional.of(List.of("-e", "A=1", "-e", "B=x y")),
+                ShellWords.words("-e \"A=$A\" -e \"B=${B}\"", variables::get));
+        assertEquals(Optional.of(List.of("1-", "", "$A", "$")),
+                ShellWords.words("$A-$UNSET \"$EMPTY\" '$A' $", variables::get));
+        assertEquals(Optional.of(List.of("a", "b")), ShellWords.words("a $EMPTY b", variables::get));
+    }
+
+    @Test
+    void rejectsExpansionsBashWouldSplitOrThatAreNotVariables() {
+        Map<String, String> variables = Map.of("B", "x y");
+
+        assertTrue(ShellWords.words("echo $B", variables::get).isEmpty());
+        assertTrue(ShellWords.words("echo \"$(date)\"", variables::get).isEmpty());
+        assertTrue(ShellWords.words("echo ${B:-z}", variables::get).isEmpty());
+        assertTrue(ShellWords.words("echo $1", variables::get).isEmpty());
+    }
+
+    @Test
+    void rejectsShellOnlyCommandsAndEmptyCommands() {
+        assertTrue(ShellWords.split("cd /tmp").isEmpty());
+        assertTrue(ShellWords.split("export A=1").isEmpty());
+        assertTrue(ShellWords.split("").isEmpty());
+        assertTrue(ShellWords.split("   ").isEmpty());
+    }
+}
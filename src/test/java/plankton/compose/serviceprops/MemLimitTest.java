@@ -0,0 +1,42 @@
+package plankton.compose.serviceprops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class MemLimitTest {
+
+    @Test
+    void plainNumberIsBytes() {
+        assertEquals(1024, MemLimit.bytesOf("1024"));
+        assertEquals(1024, MemLimit.bytesOf("1024b"));
+    }
+
+    @Test
+    void parsesBinaryUnits() {
+        assertEquals(512L << 10, MemLimit.bytesOf("512k"));
+        assertEquals(512L << 20, MemLimit.bytesOf("512m"));
+        assertEquals(2L << 30, MemLimit.bytesOf("2g"));
+    }
+
+    @Test
+    void acceptsUnitSpellingsOfTheCli() {
+        assertEquals(512L << 20, MemLimit.bytesOf("512M"));
+        assertEquals(512L << 20, MemLimit.bytesOf("512mb"));
+        assertEquals(2L << 30, MemLimit.bytesOf(" 2GB "));
+    }
+
+    @Test
+    void parsesFractions() {
+        assertEquals(3L << 29, MemLimit.bytesOf("1.5g"));
+        assertEquals(512L << 10, MemLimit.bytesOf("0.5m"));
+    }
+
+    @Test
+    void rejectsInvalidSizes() {
+        assertThrows(NumberFormatException.class, () -> MemLimit.bytesOf(""));
+        assertThrows(NumberFormatException.class, () -> MemLimit.bytesOf("g"));
+        assertThrows(NumberFormatException.class, () -> MemLimit.bytesOf("12x"));
+    }
+}
@@ -0,0 +1,47 @@
+package plankton.compose.serviceprops;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class TimeoutTest {
+
+    @Test
+    void plainNumberIsSeconds() {
+        assertEquals(Duration.ofSeconds(90), Timeout.durationOf("90"));
+        assertEquals(Duration.ofSeconds(90), Timeout.durationOf(" 90 "));
+    }
+
+    @Test
+    void parsesEachUnit() {
+        assertEquals(Duration.ofHours(2), Timeout.durationOf("2h"));
+        assertEquals(Duration.ofMinutes(5), Timeout.durationOf("5m"));
+        assertEquals(Duration.ofSeconds(30), Timeout.durationOf("30s"));
+        assertEquals(Duration.ofMillis(250), Timeout.durationOf("250ms"));
+        assertEquals(Duration.ofNanos(1_500_000), Timeout.durationOf("1500us"));
+    }
+
+    @Test
+    void addsCombinedParts() {
+        assertEquals(Duration.ofMinutes(90).plusSeconds(30), Timeout.durationOf("1h30m30s"));
+        assertEquals(Duration.ofSeconds(1).plusMillis(500), Timeout.durationOf("1s500ms"));
+    }
+
+    @Test
+    void parsesFractions() {
+        assertEquals(Duration.ofMillis(1500), Timeout.durationOf("1.5s"));
+        assertEquals(Duration.ofMinutes(90), Timeout.durationOf("1.5h"));
+    }
+
+    @Test
+    void rejectsInvalidDurations() {
+        assertThrows(IllegalArgumentException.class, () -> Timeout.durationOf(""));
+        assertThrows(IllegalArgumentException.class, () -> Timeout.durationOf("10x"));
+        assertThrows(IllegalArgumentException.class, () -> Timeout.durationOf("m5"));
+        assertThrows(IllegalArgumentException.class, () -> Timeout.durationOf("5m garbage"));
+        assertThrows(IllegalArgumentException.class, () -> Timeout.durationOf("5 m"));
+    }
+}
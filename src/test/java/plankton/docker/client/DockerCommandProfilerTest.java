@@ -0,0 +1,39 @@
+package plankton.docker.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class DockerCommandProfilerTest {
+
+    private final DockerCommandProfiler profiler = new DockerCommandProfiler();
+
+    @Test
+    void countsNonZeroExitCodesAsFailed() {
+        profiler.timeExitCode(DockerCommandType.LOGS, () -> 0);
+        profiler.timeExitCode(DockerCommandType.LOGS, () -> 1);
+        profiler.timeExitCode(DockerCommandType.LOGS, () -> 125);
+
+        assertEquals(Map.of("ok", 1L, "failed", 2L), outcomesOf(DockerCommandType.LOGS));
+    }
+
+    @Test
+    void countsExceptionsAsFailed() {
+        profiler.time(DockerCommandType.INSPECT, () -> "id");
+        assertThrows(DockerClientException.class, () -> profiler.time(DockerCommandType.INSPECT, () -> {
+            throw new DockerClientException("Unable to inspect");
+        }));
+
+        assertEquals(Map.of("ok", 1L, "failed", 1L), outcomesOf(DockerCommandType.INSPECT));
+    }
+
+    private Map<String, Long> outcomesOf(DockerCommandType type) {
+        return profiler.summary().stream()
+                .filter(latency -> latency.getCommand().equals(type.toString()))
+                .collect(Collectors.toMap(DockerCommandLatency::getOutcome, DockerCommandLatency::getCount));
+    }
+}
@@ -0,0 +1,74 @@
+package plankton.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.mean());
+        assertEquals(0, histogram.percentile(50));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100; value++)
+            histogram.record(value);
+
+        assertEquals(100, histogram.count());
+        assertEquals(50.5, histogram.mean());
+        assertEquals(50, histogram.percentile(50));
+        assertEquals(90, histogram.percentile(90));
+        assertEquals(99, histogram.percentile(99));
+        assertEquals(100, histogram.percentile(100));
+        assertEquals(100, histogram.max());
+    }
+
+    @Test
+    void largeValuesAreWithinTheRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 100_000; value++)
+            histogram.record(value * 10L);
+
+        assertWithinError(500_000, histogram.percentile(50));
+        assertWithinError(900_000, histogram.percentile(90));
+        assertWithinError(990_000, histogram.percentile(99));
+        assertEquals(1_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void percentileNeverExceedsTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(1001);
+
+        assertTrue(histogram.percentile(50) <= 1001);
+        assertEquals(1001, histogram.percentile(99.9));
+    }
+
+    @Test
+    void negativeValuesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertEquals(1, histogram.count());
+        assertEquals(0, histogram.percentile(50));
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        for (long value = 120; value < 1 << 20; value++)
+            assertTrue(LatencyHistogram.indexOf(value + 1) - LatencyHistogram.indexOf(value) <= 1);
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.016, expected + " ~ " + actual);
+    }
+}
@@ -0,0 +1,58 @@
+package plankton.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+@Timeout(30)
+class CriticalPathReportTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void followsTheDependenciesThatMadeEachJobReady() throws Exception {
+        FakeContainerRuntimeAdapter adapter = new FakeContainerRuntimeAdapter();
+        adapter.runMillis.put("compile", 300L);
+        adapter.runMillis.put("lint", 50L);
+        adapter.runMillis.put("test", 200L);
+        adapter.runMillis.put("docs", 50L);
+        Pipeline pipeline = new PipelineInitializer(TestPipelineConfiguration.of(directory, "jobs:\n"
+                + "  compile:\n"
+                + "    image: alpine\n"
+                + "  lint:\n"
+                + "    image: alpine\n"
+                + "  test:\n"
+                + "    image: alpine\n"
+                + "    depends_on:\n"
+                + "      - compile\n"
+                + "      - lint\n"
+                + "  docs:\n"
+                + "    image: alpine\n"
+                + "    depends_on: lint\n", adapter)).pipeline();
+        pipeline.start();
+        pipeline.waitForCompletion();
+
+        CriticalPathReport report = pipeline.criticalPathReport().orElseThrow();
+        List<CriticalPathReport.Step> path = report.getCriticalPath();
+
+        assertEquals(List.of("compile", "test"),
+                path.stream().map(CriticalPathReport.Step::getJob).collect(Collectors.toList()));
+        assertNull(path.get(0).getCondition());
+        assertEquals("service_completed_successfully", path.get(1).getCondition());
+        assertTrue(path.get(1).getStartMillis() >= path.get(0).getEndMillis());
+        assertTrue(report.getCriticalPathMillis() >= 500);
+        assertTrue(report.getCriticalPathMillis() <= report.getDurationMillis());
+        assertEquals(4, report.getJobsRunningLimit());
+        assertTrue(report.getAverageConcurrency() > 0);
+        assertTrue(report.report().startsWith("Critical path "));
+    }
+}
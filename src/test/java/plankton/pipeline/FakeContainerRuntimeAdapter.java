@@ -0,0 +1,88 @@
+package plankton.pipeline;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+// Containers exit with code 0 unless told otherwise, right after starting, after running for the given time,
+// or once they are stopped
+class FakeContainerRuntimeAdapter implements ContainerRuntimeAdapter {
+
+    final Map<String, Integer> exitCodes = new HashMap<>();
+    final Map<String, Long> runMillis = new HashMap<>();
+    final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, CountDownLatch> running = new ConcurrentHashMap<>();
+
+    void runUntilStopped(String name) {
+        running.put(name, new CountDownLatch(1));
+    }
+
+    @Override
+    public void pullImage(ContainerConfiguration configuration) {
+    }
+
+    @Override
+    public void buildImage(ContainerConfiguration configuration) {
+    }
+
+    @Override
+    public void createContainer(ContainerConfiguration configuration) {
+    }
+
+    @Override
+    public int startContainerAndGetExitCode(ContainerConfiguration configuration) {
+        String name = configuration.getService().name();
+        events.add("start " + name);
+        configuration.getOnStarted().run();
+        CountDownLatch stopped = running.get(name);
+        if (stopped != null) {
+            try {
+                stopped.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (runMillis.containsKey(name)) {
+            try {
+                Thread.sleep(runMillis.get(name));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        events.add("exit " + name);
+        return exitCodes.getOrDefault(name, 0);
+    }
+
+    @Override
+    public void fetchLogs(ContainerConfiguration configuration) {
+    }
+
+    @Override
+    public void stopContainer(ContainerConfiguration configuration) {
+        String name = configuration.getService().name();
+        events.add("stop " + name);
+        CountDownLatch stopped = running.get(name);
+        if (stopped != null)
+            stopped.countDown();
+    }
+
+    @Override
+    public void killContainer(ContainerConfiguration configuration) {
+        stopContainer(configuration);
+    }
+
+    @Override
+    public String imageDigest(ContainerConfiguration configuration) {
+        return "sha256:0";
+    }
+
+    @Override
+    public Optional<Map<String, Path>> readOnlyInputs(ContainerConfiguration configuration) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,71 @@
+package plankton.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JobCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysSavedRecording() {
+        JobCache cache = new JobCache(directory, 1024 * 1024);
+        JobCache.Recording recording = cache.record("key");
+        recording.output("compiling");
+        recording.error("warning");
+        recording.output("done");
+        recording.save(0);
+
+        List<String> output = new ArrayList<>();
+        List<String> error = new ArrayList<>();
+        Optional<Integer> exitCode = new JobCache(directory, 1024 * 1024).replay("key", output::add, error::add);
+
+        assertEquals(Optional.of(0), exitCode);
+        assertEquals(List.of("compiling", "done"), output);
+        assertEquals(List.of("warning"), error);
+        assertEquals(List.of("key"), fileNames());
+    }
+
+    @Test
+    void deletesDiscardedRecording() {
+        JobCache cache = new JobCache(directory, 1024 * 1024);
+        JobCache.Recording recording = cache.record("key");
+        recording.output("compiling");
+        recording.discard();
+
+        assertTrue(cache.replay("key", line -> {
+        }, line -> {
+        }).isEmpty());
+        assertEquals(List.of(), fileNames());
+    }
+
+    @Test
+    void deletesRecordingsLeftByAnInterruptedRun() {
+        new JobCache(directory, 1024 * 1024).record("key").output("compiling");
+
+        new JobCache(directory, 1024 * 1024);
+
+        assertEquals(List.of(), fileNames());
+    }
+
+    private List<String> fileNames() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
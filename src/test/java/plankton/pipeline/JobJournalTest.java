@@ -0,0 +1,137 @@
+package plankton.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+class JobJournalTest {
+
+    private static final String PIPELINE = "jobs:\n"
+            + "  build:\n"
+            + "    image: alpine\n"
+            + "    command: make\n"
+            + "  test:\n"
+            + "    image: alpine\n"
+            + "    depends_on: build\n";
+
+    @TempDir
+    Path directory;
+
+    private Path metadataDirectory;
+    private Path journalPath;
+    private Pipeline pipeline;
+
+    @BeforeEach
+    void recordJobs() throws IOException {
+        pipeline = pipelineOf(PIPELINE);
+        metadataDirectory = directory.resolve(".plankton");
+        journalPath = metadataDirectory.resolve("journal");
+        pipeline.getJobByName("build").restore(JobStatus.EXITED_ZERO, 0);
+        pipeline.getJobByName("test").restore(JobStatus.EXITED_NON_ZERO, 2);
+        pipeline.jobJournal.close();
+    }
+
+    @Test
+    void resumesRecordedJobs() {
+        JobJournal journal = new JobJournal(metadataDirectory);
+
+        JobJournal.Entry build = journal.lastEntryOf(pipeline.getJobByName("build")).orElseThrow();
+        JobJournal.Entry test = journal.lastEntryOf(pipeline.getJobByName("test")).orElseThrow();
+        journal.close();
+
+        assertEquals(JobStatus.EXITED_ZERO, build.getStatus());
+        assertEquals(0, build.getExitCode());
+        assertEquals(JobStatus.EXITED_NON_ZERO, test.getStatus());
+        assertEquals(2, test.getExitCode());
+    }
+
+    @Test
+    void truncatesIncompleteRecordAtTheEnd() throws IOException {
+        long length = Files.size(journalPath);
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(7).putInt(0, 40));
+        }
+
+        JobJournal journal = new JobJournal(metadataDirectory);
+        boolean testResumed = journal.lastEntryOf(pipeline.getJobByName("test")).isPresent();
+        journal.close();
+
+        assertTrue(testResumed);
+        assertEquals(length, Files.size(journalPath));
+    }
+
+    @Test
+    void stopsAtRecordWithWrongChecksum() throws IOException {
+        long length = Files.size(journalPath);
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, length - 1);
+            channel.write(ByteBuffer.wrap(new byte[] { (byte) ~lastByte.get(0) }), length - 1);
+        }
+
+        JobJournal journal = new JobJournal(metadataDirectory);
+        boolean buildResumed = journal.lastEntryOf(pipeline.getJobByName("build")).isPresent();
+        boolean testResumed = journal.lastEntryOf(pipeline.getJobByName("test")).isPresent();
+        journal.close();
+
+        assertTrue(buildResumed);
+        assertFalse(testResumed);
+        assertTrue(Files.size(journalPath) < length);
+    }
+
+    @Test
+    void ignoresJobsWhoseConfigurationChanged() throws IOException {
+        Pipeline changedPipeline = pipelineOf(PIPELINE.replace("command: make", "command: make all"));
+
+        boolean buildResumed = changedPipeline.jobJournal.lastEntryOf(changedPipeline.getJobByName("build"))
+                .isPresent();
+        boolean testResumed = changedPipeline.jobJournal.lastEntryOf(changedPipeline.getJobByName("test"))
+                .isPresent();
+        changedPipeline.jobJournal.close();
+
+        assertFalse(buildResumed);
+        assertTrue(testResumed);
+    }
+
+    @Test
+    @Timeout(30)
+    void startsOverAfterACompletedRun() throws Exception {
+        FakeContainerRuntimeAdapter adapter = new FakeContainerRuntimeAdapter();
+        Pipeline resumedPipeline = pipelineOf(PIPELINE, adapter);
+        resumedPipeline.start();
+        resumedPipeline.waitForCompletion();
+
+        Pipeline nextPipeline = pipelineOf(PIPELINE);
+        boolean buildResumed = nextPipeline.jobJournal.lastEntryOf(nextPipeline.getJobByName("build")).isPresent();
+        boolean testResumed = nextPipeline.jobJournal.lastEntryOf(nextPipeline.getJobByName("test")).isPresent();
+        nextPipeline.jobJournal.close();
+
+        assertEquals(List.of("start test", "exit test"), adapter.events);
+        assertFalse(buildResumed);
+        assertFalse(testResumed);
+        assertEquals(Integer.BYTES, Files.size(journalPath));
+    }
+
+    private Pipeline pipelineOf(String yaml) throws IOException {
+        return pipelineOf(yaml, new FakeContainerRuntimeAdapter());
+    }
+
+    private Pipeline pipelineOf(String yaml, FakeContainerRuntimeAdapter adapter) throws IOException {
+        TestPipelineConfiguration config = TestPipelineConfiguration.of(directory, yaml, adapter);
+        config.resume = true;
+        return new PipelineInitializer(config).pipeline();
+    }
+}
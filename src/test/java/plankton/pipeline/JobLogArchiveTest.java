@@ -0,0 +1,101 @@
+package plankton.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JobLogArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private Path dataPath;
+    private Path indexPath;
+    private byte[] content;
+
+    @BeforeEach
+    void writeArchive() throws IOException {
+        dataPath = directory.resolve("job.log.gz");
+        indexPath = directory.resolve("job.log.idx");
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; text.length() < 3 * JobLogArchive.CHUNK_SIZE + 1000; line++)
+            text.append("[INFO] line ").append(line).append(" of a verbose build\n");
+        content = text.toString().getBytes(StandardCharsets.UTF_8);
+        try (JobLogArchive archive = new JobLogArchive(dataPath, indexPath)) {
+            // Writes that do not line up with the chunks
+            for (int offset = 0; offset < content.length; offset += 10_000)
+                archive.write(ByteBuffer.wrap(content, offset, Math.min(10_000, content.length - offset)));
+        }
+    }
+
+    @Test
+    void isReadableAsGzip() throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(dataPath))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        assertTrue(Files.size(dataPath) < content.length / 4);
+    }
+
+    @Test
+    void indexesEveryChunk() throws IOException {
+        assertEquals(4 * JobLogArchive.INDEX_RECORD_SIZE, Files.size(indexPath));
+        try (ArchivedLogReader reader = new ArchivedLogReader(dataPath, indexPath)) {
+            assertEquals(content.length, reader.size());
+        }
+    }
+
+    @Test
+    void readsByteRangesAcrossChunks() throws IOException {
+        try (ArchivedLogReader reader = new ArchivedLogReader(dataPath, indexPath)) {
+            assertArrayEquals(content, read(reader, 0, Long.MAX_VALUE));
+            int start = JobLogArchive.CHUNK_SIZE - 100;
+            int end = 2 * JobLogArchive.CHUNK_SIZE + 100;
+            assertArrayEquals(Arrays.copyOfRange(content, start, end), read(reader, start, end));
+            assertArrayEquals(Arrays.copyOfRange(content, content.length - 10, content.length),
+                    read(reader, content.length - 10, content.length + 10));
+        }
+    }
+
+    @Test
+    void findsLineOffsets() throws IOException {
+        try (ArchivedLogReader reader = new ArchivedLogReader(dataPath, indexPath)) {
+            long lines = 0;
+            for (int offset = 0; offset < content.length; offset++) {
+                if (content[offset] == '\n' && ++lines % 997 == 0)
+                    assertEquals(offset + 1, reader.offsetOfLine(lines));
+            }
+            assertEquals(0, reader.offsetOfLine(0));
+            assertEquals(content.length, reader.offsetOfLine(lines + 1));
+        }
+    }
+
+    @Test
+    void ignoresIndexRecordBeingAppended() throws IOException {
+        Files.write(indexPath, new byte[] { 1, 2, 3 }, StandardOpenOption.APPEND);
+        try (ArchivedLogReader reader = new ArchivedLogReader(dataPath, indexPath)) {
+            assertArrayEquals(content, read(reader, 0, Long.MAX_VALUE));
+        }
+    }
+
+    private static byte[] read(LogReader reader, long start, long end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reader.transferTo(start, end, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+}
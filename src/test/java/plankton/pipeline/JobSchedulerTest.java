@@ -0,0 +1,160 @@
+package plankton.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.OptionalDouble;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+@Timeout(30)
+class JobSchedulerTest {
+
+    @TempDir
+    Path directory;
+
+    private final FakeContainerRuntimeAdapter adapter = new FakeContainerRuntimeAdapter();
+
+    @Test
+    void startsJobAfterItsDependencyCompletedSuccessfully() throws Exception {
+        Pipeline pipeline = run("jobs:\n"
+                + "  build:\n"
+                + "    image: alpine\n"
+                + "  test:\n"
+                + "    image: alpine\n"
+                + "    depends_on:\n"
+                + "      build:\n"
+                + "        condition: service_completed_successfully\n");
+
+        assertTrue(adapter.events.indexOf("exit build") < adapter.events.indexOf("start test"));
+        assertEquals(JobStatus.EXITED_ZERO, pipeline.getJobByName("build").status());
+        assertEquals(JobStatus.EXITED_ZERO, pipeline.getJobByName("test").status());
+    }
+
+    @Test
+    void startsJobOnceItsDependencyStarted() throws Exception {
+        adapter.runUntilStopped("db");
+        Pipeline pipeline = run("jobs:\n"
+                + "  db:\n"
+                + "    image: alpine\n"
+                + "  app:\n"
+                + "    image: alpine\n"
+                + "    depends_on:\n"
+                + "      db:\n"
+                + "        condition: service_started\n");
+
+        assertTrue(adapter.events.indexOf("start app") < adapter.events.indexOf("stop db"));
+        assertEquals(JobStatus.EXITED_ZERO, pipeline.getJobByName("app").status());
+    }
+
+    @Test
+    void blocksDownstreamJobsOfFailedJob() throws Exception {
+        adapter.exitCodes.put("build", 1);
+        Pipeline pipeline = run("jobs:\n"
+                + "  build:\n"
+                + "    image: alpine\n"
+                + "  test:\n"
+                + "    image: alpine\n"
+                + "    depends_on: build\n"
+                + "  deploy:\n"
+                + "    image: alpine\n"
+                + "    depends_on: test\n"
+                + "  lint:\n"
+                + "    image: alpine\n");
+
+        assertEquals(JobStatus.EXITED_NON_ZERO, pipeline.getJobByName("build").status());
+        assertEquals(JobStatus.BLOCKED, pipeline.getJobByName("test").status());
+        assertEquals(JobStatus.BLOCKED, pipeline.getJobByName("deploy").status());
+        assertEquals(JobStatus.EXITED_ZERO, pipeline.getJobByName("lint").status());
+        assertFalse(adapter.events.contains("start test"));
+        assertFalse(adapter.events.contains("start deploy"));
+    }
+
+    @Test
+    void stopsServiceOnceItsDependentsFinished() throws Exception {
+        adapter.runUntilStopped("db");
+        Pipeline pipeline = run("jobs:\n"
+                + "  db:\n"
+                + "    image: alpine\n"
+                + "  migrate:\n"
+                + "    image: alpine\n"
+                + "    depends_on:\n"
+                + "      db:\n"
+                + "        condition: service_started\n"
+                + "  seed:\n"
+                + "    image: alpine\n"
+                + "    depends_on:\n"
+                + "      db:\n"
+                + "        condition: service_started\n");
+
+        assertTrue(adapter.events.contains("stop db"));
+        assertTrue(adapter.events.indexOf("exit migrate") < adapter.events.indexOf("stop db"));
+        assertTrue(adapter.events.indexOf("exit seed") < adapter.events.indexOf("stop db"));
+        assertEquals(1, pipeline.metrics.autoStops.value());
+    }
+
+    @Test
+    void startsSmallerJobsWhileBiggerJobWaitsForCapacity() throws Exception {
+        adapter.runMillis.put("a", 300L);
+        run("jobs:\n"
+                + "  a:\n"
+                + "    image: alpine\n"
+                + "    cpus: 3\n"
+                + "  b:\n"
+                + "    image: alpine\n"
+                + "    cpus: 2\n"
+                + "  c:\n"
+                + "    image: alpine\n"
+                + "    cpus: 1\n", OptionalDouble.of(4));
+
+        assertTrue(adapter.events.indexOf("start c") < adapter.events.indexOf("exit a"));
+        assertTrue(adapter.events.indexOf("exit a") < adapter.events.indexOf("start b"));
+    }
+
+    @Test
+    void rejectsJobBiggerThanCapacity() throws Exception {
+        TestPipelineConfiguration config = TestPipelineConfiguration.of(directory, "jobs:\n"
+                + "  build:\n"
+                + "    image: alpine\n"
+                + "    cpus: 8\n", adapter);
+        config.cpuCapacity = OptionalDouble.of(4);
+
+        assertThrows(JobExceedsCapacityException.class, () -> new PipelineInitializer(config));
+    }
+
+    @Test
+    void forgetsTheTraceSlotOfFinishedJobs() throws Exception {
+        TestPipelineConfiguration config = TestPipelineConfiguration.of(directory, "jobs:\n"
+                + "  build:\n"
+                + "    image: alpine\n"
+                + "  test:\n"
+                + "    image: alpine\n"
+                + "    depends_on: build\n", adapter);
+        config.trace = true;
+        Pipeline pipeline = new PipelineInitializer(config).pipeline();
+        pipeline.start();
+        pipeline.waitForCompletion();
+
+        assertEquals(-1, pipeline.getJobByName("build").slot);
+        assertEquals(-1, pipeline.getJobByName("test").slot);
+    }
+
+    private Pipeline run(String yaml) throws IOException, InterruptedException {
+        return run(yaml, OptionalDouble.empty());
+    }
+
+    private Pipeline run(String yaml, OptionalDouble cpuCapacity) throws IOException, InterruptedException {
+        TestPipelineConfiguration config = TestPipelineConfiguration.of(directory, yaml, adapter);
+        config.cpuCapacity = cpuCapacity;
+        Pipeline pipeline = new PipelineInitializer(config).pipeline();
+        pipeline.start();
+        pipeline.waitForCompletion();
+        return pipeline;
+    }
+}
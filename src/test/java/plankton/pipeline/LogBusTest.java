@@ -0,0 +1,191 @@
+package plankton.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(30)
+class LogBusTest {
+
+    private static final Pattern DROPPED = Pattern.compile("\\[(\\d+) log lines dropped by .*\\]");
+
+    private static final String FINISHED = "<finished>";
+
+    private final Job quiet = job("quiet");
+    private final Job noisy = job("noisy");
+    private final CountDownLatch writerReleased = new CountDownLatch(1);
+    private final RecordingSink sink = new RecordingSink();
+    private LogBus bus;
+
+    // Lines written by the bus, after the writer has been released
+    private class RecordingSink implements LogSink {
+
+        final List<String> lines = new ArrayList<>();
+        final List<Long> dropped = new ArrayList<>();
+
+        @Override
+        public void write(LogLine line) {
+            try {
+                writerReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                Matcher matcher = DROPPED.matcher(line.text());
+                if (line.isError() && matcher.matches())
+                    dropped.add(Long.parseLong(matcher.group(1)));
+                else
+                    lines.add(line.job().name + " " + line.text());
+            }
+        }
+
+        @Override
+        public synchronized void finish(Job job) {
+            lines.add(job.name + " " + FINISHED);
+        }
+
+        synchronized List<String> linesOf(Job job) {
+            List<String> jobLines = new ArrayList<>();
+            for (String line : lines) {
+                if (line.startsWith(job.name + " "))
+                    jobLines.add(line.substring(job.name.length() + 1));
+            }
+            return jobLines;
+        }
+
+        synchronized long droppedCount() {
+            return dropped.stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    @AfterEach
+    void closeBus() {
+        writerReleased.countDown();
+        if (bus != null)
+            bus.close();
+    }
+
+    @Test
+    void blockKeepsEveryLineInOrder() {
+        bus = bus(8);
+        LogBus.Publisher publisher = bus.publisher(noisy, LogOverflowPolicy.BLOCK);
+        writerReleased.countDown();
+
+        for (int i = 0; i < 10_000; i++)
+            publisher.output("line " + i);
+        publisher.flush();
+
+        assertEquals(lines(0, 10_000), sink.linesOf(noisy));
+        assertEquals(0, sink.droppedCount());
+    }
+
+    @Test
+    void dropOldestOnlyDropsTheOldestLinesOfTheSameJob() {
+        bus = bus(64);
+        LogBus.Publisher quietPublisher = bus.publisher(quiet, LogOverflowPolicy.BLOCK);
+        LogBus.Publisher noisyPublisher = bus.publisher(noisy, LogOverflowPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < 10; i++)
+            quietPublisher.output("line " + i);
+        for (int i = 0; i < 1000; i++)
+            noisyPublisher.output("line " + i);
+        writerReleased.countDown();
+        noisyPublisher.flush();
+        quietPublisher.flush();
+
+        assertEquals(lines(0, 10), sink.linesOf(quiet));
+        List<String> noisyLines = sink.linesOf(noisy);
+        assertEquals(1000, noisyLines.size() + sink.droppedCount());
+        assertTrue(sink.droppedCount() > 0);
+        // The queue of the job keeps its newest lines
+        assertEquals(lines(1000 - 16, 1000), noisyLines.subList(noisyLines.size() - 16, noisyLines.size()));
+        assertInOrder(noisyLines);
+    }
+
+    @Test
+    void sampleKeepsSomeLinesOnceTheBufferFillsUp() {
+        bus = bus(64);
+        LogBus.Publisher publisher = bus.publisher(noisy, LogOverflowPolicy.SAMPLE);
+
+        for (int i = 0; i < 1000; i++)
+            publisher.output("line " + i);
+        writerReleased.countDown();
+        publisher.flush();
+
+        List<String> noisyLines = sink.linesOf(noisy);
+        assertEquals(1000, noisyLines.size() + sink.droppedCount());
+        assertTrue(noisyLines.size() >= 32);
+        assertTrue(noisyLines.size() < 1000);
+        assertEquals(lines(0, 32), noisyLines.subList(0, 32));
+        assertInOrder(noisyLines);
+    }
+
+    @Test
+    void dropsLinesPublishedAfterClose() {
+        bus = bus(8);
+        LogBus.Publisher publisher = bus.publisher(noisy, LogOverflowPolicy.BLOCK);
+        writerReleased.countDown();
+        publisher.output("line 0");
+        bus.close();
+
+        publisher.output("line 1");
+        publisher.error("line 2");
+        publisher.flush();
+
+        assertEquals(lines(0, 1), sink.linesOf(noisy));
+    }
+
+    @Test
+    void finishesAClosedPublisherAfterItsLines() {
+        bus = bus(8);
+        LogBus.Publisher publisher = bus.publisher(noisy, LogOverflowPolicy.BLOCK);
+        writerReleased.countDown();
+        publisher.output("line 0");
+        publisher.error("line 1");
+        publisher.close();
+
+        publisher.output("line 2");
+        bus.close();
+
+        assertEquals(List.of("line 0", "line 1", FINISHED), sink.linesOf(noisy));
+    }
+
+    private LogBus bus(int capacity) {
+        LogBus logBus = new LogBus(capacity);
+        logBus.addSink(sink);
+        return logBus;
+    }
+
+    private static Job job(String name) {
+        Job job = new Job();
+        job.name = name;
+        job.initializeColorizedNameAndLogPlaceholders();
+        return job;
+    }
+
+    private static List<String> lines(int from, int to) {
+        List<String> lines = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            lines.add("line " + i);
+        return lines;
+    }
+
+    private static void assertInOrder(List<String> lines) {
+        for (int i = 1; i < lines.size(); i++)
+            assertTrue(numberOf(lines.get(i - 1)) < numberOf(lines.get(i)),
+                    lines.get(i - 1) + " before " + lines.get(i));
+    }
+
+    private static int numberOf(String line) {
+        return Integer.parseInt(line.substring("line ".length()));
+    }
+}
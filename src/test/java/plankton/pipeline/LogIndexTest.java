@@ -0,0 +1,133 @@
+package plankton.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private final Job build = job("build");
+    private final Job test = job("test");
+
+    @Test
+    void findsLinesWithAllTerms() {
+        LogIndex index = new LogIndex(directory, Long.MAX_VALUE);
+        write(index, build, "Compiling module core");
+        write(index, build, "ERROR: disk full while compiling");
+        write(index, test, "Running tests");
+        write(index, test, "error: Disk quota exceeded");
+
+        LogSearchResult result = index.search("Disk ERROR", 10);
+        index.close();
+
+        assertEquals(List.of("disk", "error"), result.getTerms());
+        assertEquals(2, result.getMatchingLines());
+        assertEquals(4, result.getIndexedLines());
+        assertEquals(Map.of("build", List.of(1), "test", List.of(1)), result.getJobs());
+    }
+
+    @Test
+    void limitsReturnedMatches() {
+        LogIndex index = new LogIndex(directory, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++)
+            write(index, build, "warning " + i);
+
+        LogSearchResult result = index.search("warning", 3);
+        index.close();
+
+        assertEquals(10, result.getMatchingLines());
+        assertEquals(Map.of("build", List.of(0, 1, 2)), result.getJobs());
+    }
+
+    @Test
+    void spilledSegmentsAndMemoryGiveTheSameResults() throws IOException {
+        LogIndex inMemory = new LogIndex(directory.resolve("memory"), Long.MAX_VALUE);
+        LogIndex spilling = new LogIndex(directory.resolve("spilling"), 4 * 1024);
+        for (int i = 0; i < 5000; i++) {
+            String text = "step " + i + (i % 7 == 0 ? " failed" : " passed") + " on worker" + (i % 13);
+            write(inMemory, i % 2 == 0 ? build : test, text);
+            write(spilling, i % 2 == 0 ? build : test, text);
+        }
+
+        long segments;
+        try (Stream<Path> files = Files.list(directory.resolve("spilling"))) {
+            segments = files.count();
+        }
+        assertTrue(segments > 1);
+        for (String query : List.of("failed", "failed worker3", "passed worker12", "step 4999", "missing")) {
+            LogSearchResult expected = inMemory.search(query, 100);
+            LogSearchResult actual = spilling.search(query, 100);
+            assertEquals(expected.getMatchingLines(), actual.getMatchingLines(), query);
+            assertEquals(expected.getJobs(), actual.getJobs(), query);
+        }
+        assertEquals(1, spilling.search("step 4999", 10).getMatchingLines());
+        inMemory.close();
+        spilling.close();
+    }
+
+    @Test
+    void searchesWhileLinesArrive() throws InterruptedException {
+        LogIndex index = new LogIndex(directory, 16 * 1024);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++)
+                write(index, i % 3 == 0 ? build : test, "line " + i + " done");
+        });
+        writer.start();
+        long previous = 0;
+        while (writer.isAlive()) {
+            LogSearchResult result = index.search("done", 50);
+            assertTrue(result.getMatchingLines() >= previous);
+            previous = result.getMatchingLines();
+            for (List<Integer> lines : result.getJobs().values()) {
+                for (int i = 1; i < lines.size(); i++)
+                    assertTrue(lines.get(i - 1) < lines.get(i));
+            }
+        }
+        writer.join();
+
+        assertEquals(20000, index.search("done", 50).getMatchingLines());
+        assertEquals(Map.of("build", List.of(0, 1, 2)), index.search("done", 3).getJobs());
+        index.close();
+    }
+
+    @Test
+    void removesSegmentsOfPreviousRun() throws IOException {
+        LogIndex previous = new LogIndex(directory, 1);
+        write(previous, build, "old output");
+        previous.close();
+
+        LogIndex index = new LogIndex(directory, Long.MAX_VALUE);
+        LogSearchResult result = index.search("old", 10);
+        index.close();
+
+        assertEquals(0, result.getMatchingLines());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static void write(LogIndex index, Job job, String text) {
+        LogLine line = new LogLine();
+        line.job = job;
+        line.text = text;
+        index.write(line);
+    }
+
+    private static Job job(String name) {
+        Job job = new Job();
+        job.name = name;
+        return job;
+    }
+}
@@ -0,0 +1,166 @@
+package plankton.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import plankton.compose.ComposeDocument;
+import plankton.compose.ComposeDocumentConfiguration;
+import plankton.compose.ComposeInitializer;
+
+// Pipeline without optional features, with its metadata in .plankton under the directory
+class TestPipelineConfiguration implements PipelineConfiguration {
+
+    private final ComposeDocument composeDocument;
+    private final Path directory;
+    private final ContainerRuntimeAdapter adapter;
+    boolean resume = false;
+    OptionalDouble cpuCapacity = OptionalDouble.empty();
+    boolean trace = false;
+
+    TestPipelineConfiguration(ComposeDocument composeDocument, Path directory, ContainerRuntimeAdapter adapter) {
+        this.composeDocument = composeDocument;
+        this.directory = directory;
+        this.adapter = adapter;
+    }
+
+    @Override
+    public ComposeDocument composeDocument() {
+        return composeDocument;
+    }
+
+    @Override
+    public ContainerRuntimeAdapter containerRuntimeAdapter() {
+        return adapter;
+    }
+
+    @Override
+    public Set<String> targetJobs() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<String> skipJobs() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Optional<Duration> timeoutLimitForJobs() {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Duration> timeoutLimitForPipeline() {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean failFast() {
+        return false;
+    }
+
+    @Override
+    public Path metadataDirectory() {
+        return directory.resolve(".plankton");
+    }
+
+    @Override
+    public boolean resume() {
+        return resume;
+    }
+
+    @Override
+    public boolean quiet() {
+        return false;
+    }
+
+    @Override
+    public int jobsRunningLimit() {
+        return 4;
+    }
+
+    @Override
+    public OptionalDouble cpuCapacity() {
+        return cpuCapacity;
+    }
+
+    @Override
+    public OptionalLong memoryCapacity() {
+        return OptionalLong.empty();
+    }
+
+    @Override
+    public Optional<Path> cacheDirectory() {
+        return Optional.empty();
+    }
+
+    @Override
+    public long cacheSize() {
+        return 0;
+    }
+
+    @Override
+    public int logBufferSize() {
+        return 1024;
+    }
+
+    @Override
+    public String logOverflow() {
+        return "block";
+    }
+
+    @Override
+    public boolean logFiles() {
+        return false;
+    }
+
+    @Override
+    public boolean logCompression() {
+        return false;
+    }
+
+    @Override
+    public boolean logIndex() {
+        return false;
+    }
+
+    @Override
+    public long logIndexMemory() {
+        return 0;
+    }
+
+    @Override
+    public boolean trace() {
+        return trace;
+    }
+
+    @Override
+    public String namespace() {
+        return "test";
+    }
+
+    static TestPipelineConfiguration of(Path directory, String yaml, ContainerRuntimeAdapter adapter)
+            throws IOException {
+        Path file = directory.resolve("plankton.yaml");
+        Files.writeString(file, yaml);
+        ComposeDocument composeDocument = new ComposeInitializer(new ComposeDocumentConfiguration() {
+
+            @Override
+            public Path filePath() {
+                return file;
+            }
+
+            @Override
+            public Path resolvePathsFrom() {
+                return directory;
+            }
+        }).composeDocument();
+        return new TestPipelineConfiguration(composeDocument, directory, adapter);
+    }
+}